@@ -0,0 +1,232 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014 Ordinastie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.malisis.core.block;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.google.common.collect.MapMaker;
+
+import gnu.trove.map.hash.TLongObjectHashMap;
+import net.malisis.core.registry.AutoLoad;
+import net.malisis.core.registry.MalisisRegistry;
+import net.malisis.core.registry.SetBlockCallbackRegistry.ISetBlockCallbackPredicate;
+import net.malisis.core.util.callback.CallbackResult;
+import net.malisis.core.util.callback.ICallback.CallbackOption;
+import net.minecraft.block.Block;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.util.EnumFacing;
+import net.minecraft.util.math.AxisAlignedBB;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.IBlockAccess;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraftforge.common.MinecraftForge;
+import net.minecraftforge.event.world.ChunkEvent;
+import net.minecraftforge.event.world.WorldEvent;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+
+/**
+ * The BoundingBoxCache holds the bounding boxes of {@link MalisisBlock MalisisBlocks}, as returned by
+ * {@link IBoundingBox#getRotatedBoundingBoxes(IBlockAccess, BlockPos, IBlockState, BoundingBoxType)}.
+ *
+ * <p>
+ * Bounding boxes that only depend on the {@link IBlockState} are cached per state and {@link BoundingBoxType}.<br>
+ * Bounding boxes that depend on the neighbors are cached per position in a {@link World}, and are discarded when the block or one of
+ * its neighbors changes, or when the chunk unloads. Only lookups from the {@link World} itself use this cache, so that render threads
+ * querying a {@link net.minecraft.world.ChunkCache} always compute up to date boxes.
+ *
+ * <p>
+ * Cached arrays are shared and must not be modified.
+ *
+ * @author Ordinastie
+ */
+@AutoLoad
+public class BoundingBoxCache
+{
+	/**
+	 * Defines how the bounding boxes of a block can be cached.<br>
+	 * Declared from least to most restrictive.
+	 */
+	public enum Caching
+	{
+		/** Bounding boxes only depend on the {@link IBlockState}. */
+		STATE,
+		/** Bounding boxes depend on the neighbors, and are cached per position. */
+		POSITION,
+		/** Bounding boxes are never cached. */
+		NONE
+	}
+
+	private static BoundingBoxCache instance = new BoundingBoxCache();
+	private static final int TYPES = BoundingBoxType.values().length;
+
+	/** Bounding boxes per state, indexed by {@link BoundingBoxType#ordinal()}. */
+	private final Map<IBlockState, AxisAlignedBB[][]> states = new ConcurrentHashMap<>();
+	/** Bounding boxes per world and packed position, indexed by {@link BoundingBoxType#ordinal()}. */
+	private final Map<World, TLongObjectHashMap<AxisAlignedBB[][]>> positions = new MapMaker().weakKeys().makeMap();
+
+	private BoundingBoxCache()
+	{
+		MinecraftForge.EVENT_BUS.register(this);
+		//neighbors of any kind can change the cached bounding boxes
+		MalisisRegistry.onPostSetBlock(	this::onSetBlock,
+										CallbackOption.of((ISetBlockCallbackPredicate) this::hasPositions));
+	}
+
+	private boolean hasPositions(Chunk chunk, BlockPos pos, IBlockState oldState, IBlockState newState)
+	{
+		return positions.get(chunk.getWorld()) != null;
+	}
+
+	/**
+	 * Discards the bounding boxes cached for the position and its neighbors.
+	 *
+	 * @param chunk the chunk
+	 * @param pos the pos
+	 * @param oldState the old state
+	 * @param newState the new state
+	 * @return the callback result
+	 */
+	private CallbackResult<Void> onSetBlock(Chunk chunk, BlockPos pos, IBlockState oldState, IBlockState newState)
+	{
+		TLongObjectHashMap<AxisAlignedBB[][]> map = positions.get(chunk.getWorld());
+		if (map == null)
+			return CallbackResult.noResult();
+
+		synchronized (map)
+		{
+			if (map.isEmpty())
+				return CallbackResult.noResult();
+
+			map.remove(pos.toLong());
+			for (EnumFacing facing : EnumFacing.VALUES)
+				map.remove(pos.offset(facing).toLong());
+		}
+		return CallbackResult.noResult();
+	}
+
+	@SubscribeEvent
+	public void onChunkUnload(ChunkEvent.Unload event)
+	{
+		TLongObjectHashMap<AxisAlignedBB[][]> map = positions.get(event.getWorld());
+		if (map == null)
+			return;
+
+		int chunkX = event.getChunk().x;
+		int chunkZ = event.getChunk().z;
+		synchronized (map)
+		{
+			//x and z are stored in the upper and lower 26 bits of the packed position
+			map.retainEntries((pos, aabbs) -> (int) (pos >> 38) >> 4 != chunkX || (int) (pos << 38 >> 38) >> 4 != chunkZ);
+		}
+	}
+
+	@SubscribeEvent
+	public void onWorldUnload(WorldEvent.Unload event)
+	{
+		positions.remove(event.getWorld());
+	}
+
+	/**
+	 * Gets the cached bounding boxes.
+	 *
+	 * @param caching the caching
+	 * @param world the world
+	 * @param pos the pos
+	 * @param state the state
+	 * @param type the type
+	 * @return the bounding boxes, or null if they are not cached
+	 */
+	public static AxisAlignedBB[] get(Caching caching, IBlockAccess world, BlockPos pos, IBlockState state, BoundingBoxType type)
+	{
+		AxisAlignedBB[][] aabbs = null;
+		if (caching == Caching.STATE)
+			aabbs = instance.states.get(state);
+		else if (caching == Caching.POSITION && world instanceof World && pos != null)
+		{
+			TLongObjectHashMap<AxisAlignedBB[][]> map = instance.positions.get(world);
+			if (map != null)
+			{
+				synchronized (map)
+				{
+					aabbs = map.get(pos.toLong());
+				}
+			}
+		}
+
+		return aabbs != null ? aabbs[type.ordinal()] : null;
+	}
+
+	/**
+	 * Stores the bounding boxes in the cache.
+	 *
+	 * @param caching the caching
+	 * @param world the world
+	 * @param pos the pos
+	 * @param state the state
+	 * @param type the type
+	 * @param aabbs the aabbs
+	 */
+	public static void put(Caching caching, IBlockAccess world, BlockPos pos, IBlockState state, BoundingBoxType type, AxisAlignedBB[] aabbs)
+	{
+		if (aabbs == null)
+			return;
+
+		if (caching == Caching.STATE)
+		{
+			instance.states.compute(state, (s, array) -> {
+				array = array != null ? array.clone() : new AxisAlignedBB[TYPES][];
+				array[type.ordinal()] = aabbs;
+				return array;
+			});
+		}
+		else if (caching == Caching.POSITION && world instanceof World && pos != null)
+		{
+			TLongObjectHashMap<AxisAlignedBB[][]> map = instance.positions.computeIfAbsent((World) world, w -> new TLongObjectHashMap<>());
+			synchronized (map)
+			{
+				AxisAlignedBB[][] array = map.get(pos.toLong());
+				if (array == null)
+				{
+					array = new AxisAlignedBB[TYPES][];
+					map.put(pos.toLong(), array);
+				}
+				array[type.ordinal()] = aabbs;
+			}
+		}
+	}
+
+	/**
+	 * Discards all the bounding boxes cached for the states of the {@link Block}.<br>
+	 * Called when the components of the block change.
+	 *
+	 * @param block the block
+	 */
+	public static void invalidate(Block block)
+	{
+		instance.states.keySet().removeIf(state -> state.getBlock() == block);
+	}
+}
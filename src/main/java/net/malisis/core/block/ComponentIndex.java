@@ -0,0 +1,119 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014 Ordinastie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.malisis.core.block;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * The ComponentIndex holds a frozen view of the {@link IComponent} of an {@link IComponentProvider} and memoizes the lookups by type.<br>
+ * Both exact and supertype/interface queries are cached, as well as negative results, so that repeated
+ * {@link IComponent#getComponent(Class, Object)} calls only cost a single map read.<br>
+ * The index is rebuilt lazily after {@link #invalidate()} is called, typically from {@link IComponentProvider#addComponent(IComponent)}.
+ *
+ * @author Ordinastie
+ */
+public class ComponentIndex
+{
+	/** Marker stored for types that have no matching component. */
+	private static final Object NONE = new Object();
+
+	/** Supplier for the components of the provider. */
+	private final Supplier<List<? extends IComponent>> source;
+	/** Frozen list of components. */
+	private volatile List<IComponent> components;
+	/** Type lookup cache. */
+	private final Map<Class<?>, Object> lookup = new ConcurrentHashMap<>();
+
+	public ComponentIndex(Supplier<List<? extends IComponent>> source)
+	{
+		this.source = source;
+	}
+
+	/**
+	 * Gets the frozen list of components.
+	 *
+	 * @return the components
+	 */
+	public List<IComponent> getComponents()
+	{
+		List<IComponent> list = components;
+		if (list == null)
+		{
+			list = ImmutableList.copyOf(source.get());
+			components = list;
+		}
+		return list;
+	}
+
+	/**
+	 * Gets the first component matching the specified type.
+	 *
+	 * @param <T> the generic type
+	 * @param type the type
+	 * @return the component, or null if none matches
+	 */
+	public <T> T getComponent(Class<T> type)
+	{
+		Object component = lookup.get(type);
+		if (component == null)
+		{
+			component = find(type);
+			lookup.put(type, component);
+		}
+
+		return component != NONE ? type.cast(component) : null;
+	}
+
+	/**
+	 * Finds the first component matching the specified type.
+	 *
+	 * @param type the type
+	 * @return the component, or {@link #NONE}
+	 */
+	private Object find(Class<?> type)
+	{
+		for (IComponent component : getComponents())
+		{
+			if (type.isInstance(component))
+				return component;
+		}
+		return NONE;
+	}
+
+	/**
+	 * Invalidates this {@link ComponentIndex}.<br>
+	 * Must be called whenever the components of the provider change.
+	 */
+	public void invalidate()
+	{
+		components = null;
+		lookup.clear();
+	}
+}
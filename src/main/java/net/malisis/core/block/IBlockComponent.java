@@ -26,6 +26,7 @@ package net.malisis.core.block;
 
 import java.util.Random;
 
+import net.malisis.core.block.BoundingBoxCache.Caching;
 import net.malisis.core.item.MalisisItemBlock;
 import net.minecraft.block.Block;
 import net.minecraft.block.material.MapColor;
@@ -224,6 +225,19 @@ public interface IBlockComponent extends IComponent
 		return null;
 	}
 
+	/**
+	 * Gets how the bounding boxes returned by this component can be cached by the {@link BoundingBoxCache}.<br>
+	 * Components whose bounding boxes depend on the neighbors should return {@link Caching#POSITION}, components whose bounding boxes
+	 * cannot be cached at all {@link Caching#NONE}.
+	 *
+	 * @param block the block
+	 * @return the caching
+	 */
+	public default Caching getBoundingBoxCaching(Block block)
+	{
+		return Caching.STATE;
+	}
+
 	/**
 	 * Whether the {@link Block} can be placed on the side of another block.
 	 *
@@ -64,51 +64,63 @@ public interface IBoundingBox
 		return new AxisAlignedBB[] { getBoundingBox(world, pos, state, type) };
 	}
 
+	/**
+	 * Gets the {@link AxisAlignedBB} for this {@link IBoundingBox}, rotated for the direction of the {@link IBlockState}.<br>
+	 * The returned array may be shared and must not be modified.
+	 *
+	 * @param world the world
+	 * @param pos the pos
+	 * @param state the state
+	 * @param type the type
+	 * @return the bounding boxes
+	 */
+	public default AxisAlignedBB[] getRotatedBoundingBoxes(IBlockAccess world, BlockPos pos, IBlockState state, BoundingBoxType type)
+	{
+		return AABBUtils.rotate(getBoundingBoxes(world, pos, state, type), DirectionalComponent.getDirection(state));
+	}
+
 	public default AxisAlignedBB[] getCollisionBoundingBoxes(World world, BlockPos pos, IBlockState state)
 	{
-		AxisAlignedBB[] aabbs = getBoundingBoxes(world, pos, state, BoundingBoxType.COLLISION);
-		aabbs = AABBUtils.rotate(aabbs, DirectionalComponent.getDirection(state));
-		return aabbs;
+		return ArrayUtils.clone(getRotatedBoundingBoxes(world, pos, state, BoundingBoxType.COLLISION));
 	}
 
 	public default void addCollisionBoxToList(IBlockState state, World world, BlockPos pos, AxisAlignedBB mask, List<AxisAlignedBB> list, Entity collidingEntity, boolean useActualState)
 	{
-		AxisAlignedBB[] aabbs = getBoundingBoxes(world, pos, state, BoundingBoxType.COLLISION);
-		aabbs = AABBUtils.rotate(aabbs, DirectionalComponent.getDirection(state));
+		AxisAlignedBB[] aabbs = getRotatedBoundingBoxes(world, pos, state, BoundingBoxType.COLLISION);
+		if (aabbs == null)
+			return;
 
-		for (AxisAlignedBB aabb : AABBUtils.offset(pos, aabbs))
+		for (AxisAlignedBB aabb : aabbs)
 		{
-			if (aabb != null && mask.intersects(aabb))
-				list.add(aabb);
+			//only offset the boxes actually colliding
+			if (aabb != null && mask.intersects(aabb.minX + pos.getX(),
+												aabb.minY + pos.getY(),
+												aabb.minZ + pos.getZ(),
+												aabb.maxX + pos.getX(),
+												aabb.maxY + pos.getY(),
+												aabb.maxZ + pos.getZ()))
+				list.add(AABBUtils.offset(pos, aabb));
 		}
 	}
 
 	//TODO : implement multi AABB selection box
 	public default AxisAlignedBB getSelectedBoundingBox(IBlockState state, World world, BlockPos pos)
 	{
-		AxisAlignedBB[] aabbs = getBoundingBoxes(world, pos, state, BoundingBoxType.SELECTION);
+		AxisAlignedBB[] aabbs = getRotatedBoundingBoxes(world, pos, state, BoundingBoxType.SELECTION);
 		if (ArrayUtils.isEmpty(aabbs) || aabbs[0] == null)
 			return AABBUtils.empty(pos);
 
-		aabbs = AABBUtils.rotate(aabbs, DirectionalComponent.getDirection(world, pos));
-
 		return AABBUtils.offset(pos, AABBUtils.combine(aabbs));
 	}
 
 	public default AxisAlignedBB[] getRenderBoundingBox(IBlockAccess world, BlockPos pos, IBlockState state)
 	{
-		AxisAlignedBB[] aabbs = getBoundingBoxes(world, pos, state, BoundingBoxType.RENDER);
-		aabbs = AABBUtils.rotate(aabbs, DirectionalComponent.getDirection(state));
-
-		return aabbs;
+		return ArrayUtils.clone(getRotatedBoundingBoxes(world, pos, state, BoundingBoxType.RENDER));
 	}
 
 	public default AxisAlignedBB[] getRayTraceBoundingBox(IBlockAccess world, BlockPos pos, IBlockState state)
 	{
-		AxisAlignedBB[] aabbs = getBoundingBoxes(world, pos, state, BoundingBoxType.RAYTRACE);
-		aabbs = AABBUtils.rotate(aabbs, DirectionalComponent.getDirection(state));
-
-		return aabbs;
+		return ArrayUtils.clone(getRotatedBoundingBoxes(world, pos, state, BoundingBoxType.RAYTRACE));
 	}
 
 	public default RayTraceResult collisionRayTrace(IBlockState state, World world, BlockPos pos, Vec3d src, Vec3d dest)
@@ -40,11 +40,13 @@ import com.google.common.collect.Lists;
 
 import net.malisis.core.MalisisCore;
 import net.malisis.core.asm.AsmUtils;
+import net.malisis.core.block.BoundingBoxCache.Caching;
 import net.malisis.core.block.component.ITickableComponent.PeriodicTickableComponent;
 import net.malisis.core.block.component.ITickableComponent.RandomTickableComponent;
 import net.malisis.core.block.component.LadderComponent;
 import net.malisis.core.inventory.MalisisTab;
 import net.malisis.core.item.MalisisItemBlock;
+import net.malisis.core.registry.SetBlockCallbackRegistry;
 import net.malisis.core.renderer.DefaultRenderer;
 import net.malisis.core.renderer.MalisisRendered;
 import net.malisis.core.renderer.icon.Icon;
@@ -84,9 +86,32 @@ public class MalisisBlock extends Block implements IBoundingBox, IRegisterable<B
 {
 	private static Field blockStateField = AsmUtils.changeFieldAccess(Block.class, "blockState", "field_176227_L");
 
+	/** Whether the bounding box methods are overridden, per {@link MalisisBlock} class. */
+	private static final ClassValue<Boolean> customBoundingBoxes = new ClassValue<Boolean>()
+	{
+		@Override
+		protected Boolean computeValue(Class<?> type)
+		{
+			try
+			{
+				Class<?>[] params = { IBlockAccess.class, BlockPos.class, IBlockState.class, BoundingBoxType.class };
+				return type.getMethod("getBoundingBox", params).getDeclaringClass() != MalisisBlock.class
+						|| type.getMethod("getBoundingBoxes", params).getDeclaringClass() != MalisisBlock.class;
+			}
+			catch (NoSuchMethodException e)
+			{
+				return true;
+			}
+		}
+	};
+
 	protected AxisAlignedBB boundingBox;
 	protected final List<IBlockComponent> blockComponents = Lists.newArrayList();
 	protected final List<IComponent> components = Lists.newArrayList();
+	protected final ComponentIndex componentIndex = new ComponentIndex(() -> Stream	.concat(blockComponents.stream(), components.stream())
+																					.collect(Collectors.toList()));
+	/** How the bounding boxes of this block can be cached. Computed lazily from the components. */
+	private volatile Caching boundingBoxCaching;
 
 	protected MalisisBlock(Material material)
 	{
@@ -131,7 +156,13 @@ public class MalisisBlock extends Block implements IBoundingBox, IRegisterable<B
 	@Override
 	public List<IComponent> getComponents()
 	{
-		return Stream.concat(blockComponents.stream(), components.stream()).collect(Collectors.toList());
+		return componentIndex.getComponents();
+	}
+
+	@Override
+	public <T> T getComponent(Class<T> type)
+	{
+		return componentIndex.getComponent(type);
 	}
 
 	@Override
@@ -152,6 +183,10 @@ public class MalisisBlock extends Block implements IBoundingBox, IRegisterable<B
 		else
 			components.add(component);
 
+		componentIndex.invalidate();
+		boundingBoxCaching = null;
+		BoundingBoxCache.invalidate(this);
+		SetBlockCallbackRegistry.invalidateFilters();
 		component.onComponentAdded(this);
 
 		lightOpacity = getDefaultState().isOpaqueCube() ? 255 : 0;
@@ -341,6 +376,44 @@ public class MalisisBlock extends Block implements IBoundingBox, IRegisterable<B
 		return list.size() != 0 ? list.toArray(new AxisAlignedBB[0]) : IBoundingBox.super.getBoundingBoxes(world, pos, state, type);
 	}
 
+	/**
+	 * Gets how the bounding boxes of this {@link MalisisBlock} can be cached, based on its {@link IBlockComponent components}.<br>
+	 * Blocks overriding {@link #getBoundingBox(IBlockAccess, BlockPos, IBlockState, BoundingBoxType)} or
+	 * {@link #getBoundingBoxes(IBlockAccess, BlockPos, IBlockState, BoundingBoxType)} are not cached, unless they override this method.
+	 *
+	 * @return the caching
+	 */
+	public Caching getBoundingBoxCaching()
+	{
+		Caching caching = boundingBoxCaching;
+		if (caching == null)
+		{
+			caching = customBoundingBoxes.get(getClass()) ? Caching.NONE : Caching.STATE;
+			for (IBlockComponent component : getBlockComponents())
+			{
+				Caching c = component.getBoundingBoxCaching(this);
+				if (c.ordinal() > caching.ordinal())
+					caching = c;
+			}
+			boundingBoxCaching = caching;
+		}
+		return caching;
+	}
+
+	@Override
+	public AxisAlignedBB[] getRotatedBoundingBoxes(IBlockAccess world, BlockPos pos, IBlockState state, BoundingBoxType type)
+	{
+		//without world, components may return the bounding boxes for the item
+		Caching caching = world != null ? getBoundingBoxCaching() : Caching.NONE;
+		AxisAlignedBB[] aabbs = BoundingBoxCache.get(caching, world, pos, state, type);
+		if (aabbs == null)
+		{
+			aabbs = IBoundingBox.super.getRotatedBoundingBoxes(world, pos, state, type);
+			BoundingBoxCache.put(caching, world, pos, state, type, aabbs);
+		}
+		return aabbs;
+	}
+
 	@Override
 	public void addCollisionBoxToList(IBlockState state, World world, BlockPos pos, AxisAlignedBB mask, List<AxisAlignedBB> list, @Nullable Entity collidingEntity, boolean useActualState)
 	{
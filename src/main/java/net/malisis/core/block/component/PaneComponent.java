@@ -28,6 +28,7 @@ import java.util.List;
 
 import com.google.common.collect.Lists;
 
+import net.malisis.core.block.BoundingBoxCache.Caching;
 import net.malisis.core.block.BoundingBoxType;
 import net.malisis.core.block.IBlockComponent;
 import net.malisis.core.block.ISmartCull;
@@ -112,6 +113,13 @@ public class PaneComponent implements IBlockComponent, ISmartCull
 		return list.toArray(new AxisAlignedBB[0]);
 	}
 
+	@Override
+	public Caching getBoundingBoxCaching(Block block)
+	{
+		//the shape depends on the connected neighbors
+		return Caching.POSITION;
+	}
+
 	@Override
 	public Boolean isFullCube(Block block, IBlockState state)
 	{
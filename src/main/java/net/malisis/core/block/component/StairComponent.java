@@ -29,6 +29,7 @@ import java.util.List;
 
 import com.google.common.collect.Lists;
 
+import net.malisis.core.block.BoundingBoxCache.Caching;
 import net.malisis.core.block.BoundingBoxType;
 import net.malisis.core.block.IBlockComponent;
 import net.malisis.core.block.IComponent;
@@ -84,6 +85,13 @@ public class StairComponent implements IBlockComponent, ISmartCull
 		return getBounds(state.getBlock() == block ? world : null, pos, state).toArray(new AxisAlignedBB[0]);
 	}
 
+	@Override
+	public Caching getBoundingBoxCaching(Block block)
+	{
+		//the shape depends on the neighboring stairs
+		return Caching.POSITION;
+	}
+
 	public List<AxisAlignedBB> getBounds(IBlockAccess world, BlockPos pos, IBlockState state)
 	{
 		List<AxisAlignedBB> list = new ArrayList<>();
@@ -40,10 +40,10 @@ import net.malisis.core.client.gui.component.element.Size.ISize;
 import net.malisis.core.renderer.font.FontOptions;
 import net.malisis.core.renderer.font.MalisisFont;
 import net.malisis.core.renderer.font.StringWalker;
+import net.malisis.core.renderer.font.TranslationCache;
 import net.malisis.core.util.cacheddata.CachedData;
 import net.malisis.core.util.cacheddata.FixedData;
 import net.malisis.core.util.cacheddata.ICachedData;
-import net.minecraft.client.resources.I18n;
 
 /**
  * The Class GuiString represents a String to be used and displayed in a GUI.<br>
@@ -246,8 +246,9 @@ public class GuiText
 	 */
 	public void setFontOptions(FontOptions fontOptions)
 	{
-		this.fontOptions = checkNotNull(fontOptions);
-		buildLines = this.fontOptions.isBold() != fontOptions.isBold() || this.fontOptions.getFontScale() != fontOptions.getFontScale();
+		checkNotNull(fontOptions);
+		buildLines |= this.fontOptions.isBold() != fontOptions.isBold() || this.fontOptions.getFontScale() != fontOptions.getFontScale();
+		this.fontOptions = fontOptions;
 	}
 
 	/**
@@ -283,7 +284,10 @@ public class GuiText
 
 	public int getMaxWidth()
 	{
-		return lines().stream().mapToInt(l -> (int) font.getStringWidth(l, fontOptions)).max().orElse(0);
+		int width = 0;
+		for (String line : lines())
+			width = Math.max(width, (int) font.getStringWidth(line, fontOptions));
+		return width;
 	}
 
 	/**
@@ -363,6 +367,8 @@ public class GuiText
 	 */
 	private boolean hasParametersChanged()
 	{
+		if (parameters.isEmpty())
+			return false;
 		for (ICachedData<?> data : parameters.values())
 		{
 			data.update();
@@ -400,7 +406,7 @@ public class GuiText
 
 		String str = base;
 		if (translated)
-			str = I18n.format(str);
+			str = TranslationCache.translate(str);
 		str = applyParameters(str);
 		cache = str;
 		buildCache = false;
@@ -416,6 +422,9 @@ public class GuiText
 	 */
 	public String applyParameters(String str)
 	{
+		if (str.indexOf('{') == -1)
+			return str;
+
 		Matcher matcher = pattern.matcher(str);
 		StringBuffer sb = new StringBuffer();
 		while (matcher.find())
@@ -0,0 +1,210 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014 Ordinastie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.malisis.core.inventory;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NBTTagCompound;
+
+/**
+ * The InventoryIndex keeps track of the slots of a {@link MalisisInventory} per item, metadata and NBT hash, and of the empty slots.<br>
+ * It lets transfers and pulls only look at the slots that can actually merge with an {@link ItemStack} instead of scanning the whole
+ * inventory. The index is maintained by {@link MalisisSlot#setItemStack(ItemStack)} and {@link MalisisSlot#markDirty()}, so every
+ * change to the contents of the slots must go through them.<br>
+ * Slots returned are only candidates, NBT hashes can collide and slots can be full, so they still need to be checked.
+ *
+ * @author Ordinastie
+ */
+public class InventoryIndex
+{
+	private static final BitSet NO_SLOTS = new BitSet();
+
+	private final MalisisInventory inventory;
+	/** Non-empty slots per stack key. */
+	private final Map<Key, BitSet> stacks = new HashMap<>();
+	/** Stack key of each slot, null for empty and non stackable slots. */
+	private Key[] slotKeys;
+	/** Empty slots. */
+	private final BitSet freeSlots = new BitSet();
+
+	public InventoryIndex(MalisisInventory inventory)
+	{
+		this.inventory = inventory;
+		rebuild();
+	}
+
+	/**
+	 * Rebuilds this {@link InventoryIndex} from the current contents of the inventory.
+	 */
+	public void rebuild()
+	{
+		stacks.clear();
+		freeSlots.clear();
+		slotKeys = new Key[inventory.getSize()];
+		for (MalisisSlot slot : inventory.getSlots())
+			update(slot);
+	}
+
+	/**
+	 * Updates the index for the {@link MalisisSlot}.
+	 *
+	 * @param slot the slot
+	 */
+	public void update(MalisisSlot slot)
+	{
+		int index = slot.getSlotIndex();
+		if (index < 0 || index >= slotKeys.length)
+			return;
+
+		ItemStack itemStack = slot.getItemStack();
+		Key key = Key.of(itemStack);
+		Key old = slotKeys[index];
+		freeSlots.set(index, itemStack.isEmpty());
+		if (key == null ? old == null : key.equals(old))
+			return;
+
+		if (old != null)
+		{
+			BitSet set = stacks.get(old);
+			set.clear(index);
+			if (set.isEmpty())
+				stacks.remove(old);
+		}
+		if (key != null)
+			stacks.computeIfAbsent(key, k -> new BitSet()).set(index);
+		slotKeys[index] = key;
+	}
+
+	/**
+	 * Gets the slots holding an {@link ItemStack} that may be stacked with <i>itemStack</i>.<br>
+	 * The returned {@link BitSet} is updated as the slots change and must not be modified.
+	 *
+	 * @param itemStack the item stack
+	 * @return the slots
+	 */
+	public BitSet getStackableSlots(ItemStack itemStack)
+	{
+		Key key = Key.of(itemStack);
+		BitSet set = key != null ? stacks.get(key) : null;
+		return set != null ? set : NO_SLOTS;
+	}
+
+	/**
+	 * Gets the empty slots.<br>
+	 * The returned {@link BitSet} is updated as the slots change and must not be modified.
+	 *
+	 * @return the free slots
+	 */
+	public BitSet getFreeSlots()
+	{
+		return freeSlots;
+	}
+
+	/**
+	 * Gets the {@link MalisisSlot} holding an {@link ItemStack} that may be stacked with <i>itemStack</i>.
+	 *
+	 * @param itemStack the item stack
+	 * @return the slots
+	 */
+	public List<MalisisSlot> getSlots(ItemStack itemStack)
+	{
+		BitSet set = getStackableSlots(itemStack);
+		List<MalisisSlot> list = new ArrayList<>(set.cardinality());
+		for (int i = set.nextSetBit(0); i >= 0; i = set.nextSetBit(i + 1))
+			list.add(inventory.getSlot(i));
+		return list;
+	}
+
+	/**
+	 * Gets the next slot set in either {@link BitSet}, starting from <i>from</i> included, and going backwards if <i>step</i> is
+	 * negative.
+	 *
+	 * @param a the first set
+	 * @param b the second set, can be null
+	 * @param from the from
+	 * @param step the step
+	 * @return the next slot index, or -1 if none
+	 */
+	public static int nextSlot(BitSet a, BitSet b, int from, int step)
+	{
+		if (from < 0)
+			return -1;
+		int i = step > 0 ? a.nextSetBit(from) : a.previousSetBit(from);
+		if (b == null)
+			return i;
+		int j = step > 0 ? b.nextSetBit(from) : b.previousSetBit(from);
+		if (i < 0 || j < 0)
+			return Math.max(i, j);
+		return step > 0 ? Math.min(i, j) : Math.max(i, j);
+	}
+
+	/**
+	 * Key of the {@link ItemStack} that can stack together.
+	 */
+	private static class Key
+	{
+		private final Item item;
+		private final int metadata;
+		private final int tagHash;
+
+		private Key(Item item, int metadata, int tagHash)
+		{
+			this.item = item;
+			this.metadata = metadata;
+			this.tagHash = tagHash;
+		}
+
+		private static Key of(ItemStack itemStack)
+		{
+			if (itemStack.isEmpty() || !itemStack.isStackable())
+				return null;
+
+			NBTTagCompound tag = itemStack.getTagCompound();
+			int metadata = itemStack.getHasSubtypes() ? itemStack.getMetadata() : 0;
+			return new Key(itemStack.getItem(), metadata, tag != null ? tag.hashCode() : 0);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return (System.identityHashCode(item) * 31 + metadata) * 31 + tagHash;
+		}
+
+		@Override
+		public boolean equals(Object obj)
+		{
+			if (!(obj instanceof Key))
+				return false;
+			Key key = (Key) obj;
+			return item == key.item && metadata == key.metadata && tagHash == key.tagHash;
+		}
+	}
+}
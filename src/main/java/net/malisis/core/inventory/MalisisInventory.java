@@ -25,6 +25,7 @@
 package net.malisis.core.inventory;
 
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
@@ -44,6 +45,7 @@ import net.malisis.core.MalisisCore;
 import net.malisis.core.client.gui.MalisisGui;
 import net.malisis.core.inventory.IInventoryProvider.IDeferredInventoryProvider;
 import net.malisis.core.inventory.IInventoryProvider.IDirectInventoryProvider;
+import net.malisis.core.inventory.cache.InventoryChangeLog;
 import net.malisis.core.inventory.message.OpenInventoryMessage;
 import net.malisis.core.inventory.player.PlayerInventory;
 import net.malisis.core.util.EntityUtils;
@@ -82,6 +84,14 @@ public class MalisisInventory
 	protected String name;
 	/** Maximum stack size for the slots. */
 	protected int slotMaxStackSize = 64;
+	/** Change log of the slots, server side only. */
+	protected InventoryChangeLog changeLog;
+	/** NBT of each slot for inventories provided by an {@link Item}, null for empty slots. */
+	protected NBTTagCompound[] slotTags;
+	/** Version of each slot when its NBT was written. */
+	protected int[] slotTagVersions;
+	/** Index of the slots per item, null if not enabled. */
+	protected InventoryIndex index;
 	/** Event bus on which inventory events will be fired. */
 	private EventBus bus = new EventBus(ExceptionHandler.instance);
 	/** Current inventory state. */
@@ -158,6 +168,8 @@ public class MalisisInventory
 		slots.get(slotIndex).setup(null, -1);
 		slots.add(slotIndex, slot);
 		slot.setup(this, slotIndex);
+		if (index != null)
+			index.rebuild();
 	}
 
 	/**
@@ -395,6 +407,7 @@ public class MalisisInventory
 
 		this.itemStackProvider = itemStack;
 		readFromNBT(itemStack.getTagCompound());
+		slotTags = null;
 	}
 
 	/**
@@ -415,6 +428,7 @@ public class MalisisInventory
 	public void removeOpenedContainer(MalisisInventoryContainer container)
 	{
 		containers.remove(container);
+		flushNBT();
 		if (containers.size() == 0 && itemStackProvider != null && itemStackProvider.getTagCompound() != null)
 			itemStackProvider.getTagCompound().removeTag("inventoryId");
 	}
@@ -429,6 +443,55 @@ public class MalisisInventory
 		return containers;
 	}
 
+	/**
+	 * Enables the {@link InventoryIndex} for this {@link MalisisInventory}.<br>
+	 * Transfers and pulls then only look at the slots holding matching items, which is useful for large inventories. All the slots must
+	 * have their changes {@link MalisisSlot#isChangeTracked() tracked}.
+	 */
+	public void enableIndex()
+	{
+		for (MalisisSlot slot : slots)
+		{
+			if (!slot.isChangeTracked())
+				throw new IllegalStateException("Cannot index " + this + " : slot " + slot.getSlotIndex() + " is not change tracked.");
+		}
+		index = new InventoryIndex(this);
+	}
+
+	/**
+	 * Gets the {@link InventoryIndex} of this {@link MalisisInventory}.
+	 *
+	 * @return the index, or null if not enabled
+	 */
+	public InventoryIndex getIndex()
+	{
+		return index;
+	}
+
+	/**
+	 * Updates the {@link InventoryIndex} when the contents of a {@link MalisisSlot} change.
+	 *
+	 * @param slot the slot
+	 */
+	void updateIndex(MalisisSlot slot)
+	{
+		if (index != null)
+			index.update(slot);
+	}
+
+	/**
+	 * Gets the {@link InventoryChangeLog} shared by the containers viewing this {@link MalisisInventory}.<br>
+	 * Only used on the server side.
+	 *
+	 * @return the change log
+	 */
+	public InventoryChangeLog getChangeLog()
+	{
+		if (changeLog == null)
+			changeLog = new InventoryChangeLog(this);
+		return changeLog;
+	}
+
 	/**
 	 * Checks if at least one non-empty {@link ItemStack} is present in this {@link MalisisInventory}.
 	 *
@@ -458,8 +521,9 @@ public class MalisisInventory
 	 */
 	public void onSlotChanged(MalisisSlot slot)
 	{
-		if (inventoryProvider instanceof Item && itemStackProvider != null)
-			this.writeToNBT(itemStackProvider.getTagCompound());
+		//while opened, the NBT is flushed once per tick by the containers
+		if (containers.isEmpty())
+			flushNBT();
 
 		bus.post(new InventoryEvent.SlotChanged(this, slot));
 	}
@@ -492,7 +556,7 @@ public class MalisisInventory
 	 */
 	public boolean pullItemStacks(ItemStack itemStack, boolean ignoreFullStacks)
 	{
-		for (MalisisSlot s : getNonEmptySlots())
+		for (MalisisSlot s : getStackableSlots(itemStack))
 		{
 			ItemStack is = s.getItemStack();
 			if ((!ignoreFullStacks || is.getCount() < is.getMaxStackSize()) && s.extractInto(itemStack))
@@ -501,6 +565,18 @@ public class MalisisInventory
 		return false;
 	}
 
+	/**
+	 * Gets the non-empty {@link MalisisSlot} that may hold an {@link ItemStack} stackable with <code>itemStack</code>.<br>
+	 * Without {@link InventoryIndex}, all the non-empty slots are returned.
+	 *
+	 * @param itemStack the item stack
+	 * @return the slots
+	 */
+	public List<MalisisSlot> getStackableSlots(ItemStack itemStack)
+	{
+		return index != null ? index.getSlots(itemStack) : getNonEmptySlots();
+	}
+
 	/**
 	 * Transfers into this {@link MalisisInventory} the contents of <code>inventory</code>.
 	 *
@@ -569,6 +645,22 @@ public class MalisisInventory
 			end = current;
 		}
 
+		if (index != null)
+		{
+			//only go through the slots that can merge the itemStack, and the empty ones if allowed
+			BitSet stackable = index.getStackableSlots(itemStack);
+			BitSet free = emptySlot ? index.getFreeSlots() : null;
+			current = InventoryIndex.nextSlot(stackable, free, current, step);
+			while (!itemStack.isEmpty() && current >= start && current <= end)
+			{
+				slot = getSlot(current);
+				if (slot.isItemValid(itemStack) && !slot.isOutputSlot())
+					itemStack = slot.insert(itemStack);
+				current = InventoryIndex.nextSlot(stackable, free, current + step, step);
+			}
+			return itemStack;
+		}
+
 		while (!itemStack.isEmpty() && current >= start && current <= end)
 		{
 			slot = getSlot(current);
@@ -654,6 +746,54 @@ public class MalisisInventory
 		tagCompound.setTag("Items", itemList);
 	}
 
+	/**
+	 * Writes the changes of this {@link MalisisInventory} into the NBT of its {@link ItemStack} provider.<br>
+	 * Only the slots whose {@link MalisisSlot#getVersion() version} changed since the last flush are serialized again, the other slots
+	 * reuse their previous {@link NBTTagCompound}. Does nothing if the inventory is not provided by an {@link Item}.
+	 */
+	public void flushNBT()
+	{
+		if (!(inventoryProvider instanceof Item) || itemStackProvider == null || itemStackProvider.getTagCompound() == null)
+			return;
+
+		if (slotTags == null || slotTags.length != slots.size())
+		{
+			slotTags = new NBTTagCompound[slots.size()];
+			slotTagVersions = new int[slots.size()];
+			Arrays.fill(slotTagVersions, -1);
+		}
+
+		boolean changed = false;
+		for (int i = 0; i < slots.size(); i++)
+		{
+			MalisisSlot slot = slots.get(i);
+			if (slot.getVersion() == slotTagVersions[i])
+				continue;
+
+			changed = true;
+			slotTagVersions[i] = slot.getVersion();
+			slotTags[i] = null;
+			if (slot.getItemStack().isEmpty())
+				continue;
+
+			NBTTagCompound tag = new NBTTagCompound();
+			tag.setByte("Slot", (byte) slot.getSlotIndex());
+			slot.getItemStack().writeToNBT(tag);
+			slotTags[i] = tag;
+		}
+
+		if (!changed)
+			return;
+
+		NBTTagList itemList = new NBTTagList();
+		for (NBTTagCompound tag : slotTags)
+		{
+			if (tag != null)
+				itemList.appendTag(tag);
+		}
+		itemStackProvider.getTagCompound().setTag("Items", itemList);
+	}
+
 	@Override
 	public String toString()
 	{
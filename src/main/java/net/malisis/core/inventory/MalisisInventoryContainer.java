@@ -143,7 +143,7 @@ public class MalisisInventoryContainer extends Container
 			p.closeContainer();
 			p.getNextWindowId();
 			this.windowId = p.currentWindowId;
-			playerInventoryCache = new InventoryCache(player, playerInventory, windowId);
+			playerInventoryCache = new InventoryCache(player, playerInventory, this.windowId);
 		}
 
 		this.owner.openContainer = this;
@@ -301,22 +301,39 @@ public class MalisisInventoryContainer extends Container
 	 */
 	public void sendInventoryContent()
 	{
-		inventoryCaches.values().forEach(InventoryCache::sendAll);
+		UpdateInventorySlotsMessage.Packet packet = new UpdateInventorySlotsMessage.Packet(windowId);
+		for (InventoryCache cache : inventoryCaches.values())
+			cache.addChanges(packet, true);
+		sendPacket(packet);
 	}
 
 	/**
-	 * Sends all changes for base inventory, player's inventory, picked up itemStack and dragged itemStacks.
+	 * Sends all changes for base inventory, player's inventory, picked up itemStack and dragged itemStacks.<br>
+	 * All the changes are sent in a single packet. The NBT of the inventories provided by items is flushed beforehand.
 	 */
 	@Override
 	public void detectAndSendChanges()
 	{
-		playerInventoryCache.sendChanges();
-		inventoryCaches.values().forEach(InventoryCache::sendChanges);
+		for (MalisisInventory inventory : inventoryCaches.keySet())
+			inventory.flushNBT();
+
+		UpdateInventorySlotsMessage.Packet packet = new UpdateInventorySlotsMessage.Packet(windowId);
+		playerInventoryCache.addChanges(packet, false);
+		for (InventoryCache cache : inventoryCaches.values())
+			cache.addChanges(packet, false);
 
 		//picked itemStack
 		pickedItemStackCache.update();
 		if (pickedItemStackCache.hasChanged())
-			UpdateInventorySlotsMessage.updatePickedItemStack(pickedItemStackCache.get(), (EntityPlayerMP) owner, windowId);
+			packet.setPickedItemStack(pickedItemStackCache.get());
+
+		sendPacket(packet);
+	}
+
+	private void sendPacket(UpdateInventorySlotsMessage.Packet packet)
+	{
+		if (!packet.isEmpty())
+			MalisisCore.network.sendTo(packet, (EntityPlayerMP) owner);
 	}
 
 	// #end network
@@ -632,15 +649,15 @@ public class MalisisInventoryContainer extends Container
 
 			}
 
-			for (MalisisSlot s : inventory.getNonEmptySlots())
+			for (MalisisSlot s : inventory.getStackableSlots(lastShiftClicked))
 			{
 				ItemStack itemStack = s.getItemStack();
 				if (s.isState(PLAYER_EXTRACT) && ItemUtils.areItemStacksStackable(itemStack, lastShiftClicked))
 				{
 					itemStack = transferSlotOutOfInventory(inventory, s);
 					//replace what's left of the item back into the slot
-					slot.setItemStack(itemStack);
-					slot.onSlotChanged();
+					s.setItemStack(itemStack);
+					s.onSlotChanged();
 					//itemStack is not empty, inventory is full, no need to keep looping the slots
 					if (!itemStack.isEmpty())
 						return itemStack;
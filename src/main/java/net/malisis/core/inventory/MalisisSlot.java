@@ -51,6 +51,8 @@ public class MalisisSlot
 	protected int index;
 	/** {@link InventoryState} of this slot. */
 	protected InventoryState state = new InventoryState();
+	/** Version of the contents of this slot, incremented every time its {@link ItemStack} changes. */
+	protected int version = 0;
 
 	/**
 	 * Instantiates a new {@link MalisisSlot}.
@@ -131,6 +133,9 @@ public class MalisisSlot
 	public void setItemStack(ItemStack itemStack)
 	{
 		this.itemStack = checkNotNull(itemStack);
+		version++;
+		if (inventory != null)
+			inventory.updateIndex(this);
 	}
 
 	/**
@@ -246,11 +251,46 @@ public class MalisisSlot
 		return !itemStack.isEmpty();
 	}
 
+	/**
+	 * Gets the version of the contents of this {@link MalisisSlot}.<br>
+	 * The version changes every time the {@link ItemStack} is set or modified through this slot, so comparing versions is enough to know
+	 * whether the contents changed.
+	 *
+	 * @return the version
+	 */
+	public int getVersion()
+	{
+		return version;
+	}
+
+	/**
+	 * Marks the contents of this {@link MalisisSlot} as changed.<br>
+	 * Should be called when the {@link ItemStack} was modified directly.
+	 */
+	public void markDirty()
+	{
+		version++;
+		if (inventory != null)
+			inventory.updateIndex(this);
+	}
+
+	/**
+	 * Checks whether every change to the {@link ItemStack} of this {@link MalisisSlot} goes through the slot and updates its version.<br>
+	 * If not, the contents need to be compared to detect the changes.
+	 *
+	 * @return true, if changes are tracked
+	 */
+	public boolean isChangeTracked()
+	{
+		return true;
+	}
+
 	/**
 	 * Called when itemStack is set.
 	 */
 	public void onSlotChanged()
 	{
+		markDirty();
 		this.inventory.onSlotChanged(this);
 	}
 
@@ -278,6 +318,8 @@ public class MalisisSlot
 
 		int start = itemStack.getCount();
 		itemStack.setCount(Math.min(stackSize, Math.min(itemStack.getMaxStackSize(), getSlotStackLimit())));
+		if (itemStack.getCount() != start)
+			markDirty();
 		return itemStack.getCount() - start;
 	}
 
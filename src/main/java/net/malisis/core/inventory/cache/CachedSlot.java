@@ -26,22 +26,50 @@ package net.malisis.core.inventory.cache;
 
 import net.malisis.core.inventory.MalisisSlot;
 import net.malisis.core.util.cacheddata.ICachedData;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NBTTagCompound;
 
 /**
+ * Tracks the changes of a {@link MalisisSlot}.<br>
+ * Changes are detected with the {@link MalisisSlot#getVersion() version} of the slot, and a snapshot of the {@link ItemStack} reference,
+ * item, metadata and size to catch the most common direct modifications. The contents are only copied and compared for slots whose
+ * changes are not {@link MalisisSlot#isChangeTracked() tracked}.
+ *
  * @author Ordinastie
  *
  */
 public class CachedSlot implements ICachedData<MalisisSlot>
 {
 	private MalisisSlot slot;
+	/** Full copy of the contents, only for slots whose changes are not tracked. */
 	private CachedItemStack cachedItemStack;
-	private CachedItemStack cachedDraggedItemStack;
+
+	/** Version of the slot at the last update. */
+	private int version;
+	/** ItemStack of the slot at the last update. */
+	private ItemStack itemStack;
+	/** Item of the ItemStack at the last update. */
+	private Item item;
+	/** Metadata of the ItemStack at the last update. */
+	private int metadata;
+	/** Size of the ItemStack at the last update. */
+	private int count;
+	/** NBT of the ItemStack at the last update. */
+	private NBTTagCompound tag;
+	/** Hash of the NBT of the ItemStack at the last update. */
+	private int tagHash;
+	/** Whether the slot changed during the last update. */
+	private boolean changed;
+	/** Whether only the size of the ItemStack changed during the last update. */
+	private boolean countOnly;
 
 	public CachedSlot(MalisisSlot slot)
 	{
 		this.slot = slot;
-		cachedItemStack = new CachedItemStack(() -> slot.getItemStack().copy());
-		cachedDraggedItemStack = new CachedItemStack(slot::getItemStack);
+		if (!slot.isChangeTracked())
+			cachedItemStack = new CachedItemStack(() -> slot.getItemStack().copy());
+		snapshot();
 	}
 
 	@Override
@@ -53,13 +81,53 @@ public class CachedSlot implements ICachedData<MalisisSlot>
 	@Override
 	public boolean hasChanged()
 	{
-		return cachedItemStack.hasChanged() || cachedDraggedItemStack.hasChanged();
+		return changed;
+	}
+
+	/**
+	 * Checks whether only the size of the {@link ItemStack} changed during the last update.<br>
+	 * The NBT is only hashed for the slots that changed.
+	 *
+	 * @return true, if only the size changed
+	 */
+	public boolean isCountOnly()
+	{
+		return changed && countOnly;
 	}
 
 	@Override
 	public void update()
 	{
-		cachedItemStack.update();
-		cachedDraggedItemStack.update();
+		ItemStack is = slot.getItemStack();
+		boolean sameStack = itemStack == is && item == is.getItem() && metadata == is.getMetadata();
+		changed = version != slot.getVersion() || !sameStack || count != is.getCount();
+
+		if (cachedItemStack != null)
+		{
+			cachedItemStack.update();
+			changed |= cachedItemStack.hasChanged();
+		}
+
+		if (!changed)
+			return;
+
+		countOnly = sameStack && !is.isEmpty() && tag == is.getTagCompound() && tagHash == hash(tag);
+		snapshot();
+	}
+
+	private void snapshot()
+	{
+		version = slot.getVersion();
+		itemStack = slot.getItemStack();
+		item = itemStack.getItem();
+		metadata = itemStack.getMetadata();
+		count = itemStack.getCount();
+		tag = itemStack.getTagCompound();
+		tagHash = hash(tag);
+	}
+
+	private static int hash(NBTTagCompound tag)
+	{
+		return tag != null ? tag.hashCode() : 0;
 	}
 }
@@ -24,53 +24,62 @@
 
 package net.malisis.core.inventory.cache;
 
-import java.util.List;
-import java.util.stream.Collectors;
-
+import net.malisis.core.MalisisCore;
 import net.malisis.core.inventory.MalisisInventory;
-import net.malisis.core.inventory.MalisisSlot;
+import net.malisis.core.inventory.MalisisInventoryContainer;
 import net.malisis.core.inventory.message.UpdateInventorySlotsMessage;
 import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.entity.player.EntityPlayerMP;
 
 /**
+ * Keeps track of the changes of a {@link MalisisInventory} sent to the client of a {@link MalisisInventoryContainer}.<br>
+ * The changes are detected once for all the viewers by the {@link InventoryChangeLog} of the inventory, this cache only holds the
+ * version last sent.
+ *
  * @author Ordinastie
  *
  */
 public class InventoryCache
 {
 	private EntityPlayerMP player;
+	private MalisisInventory inventory;
 	private int inventoryId;
 	private int windowId;
-	private List<CachedSlot> slotCache;
+	/** Version of the {@link InventoryChangeLog} last sent. */
+	private int cursor;
 
 	public InventoryCache(EntityPlayer player, MalisisInventory inventory, int windowId)
 	{
 		this.player = (EntityPlayerMP) player;
+		this.inventory = inventory;
 		inventoryId = inventory.getInventoryId();
 		this.windowId = windowId;
-		slotCache = inventory.getSlots().stream().map(CachedSlot::new).collect(Collectors.toList());
-	}
-
-	public void update()
-	{
-		slotCache.forEach(CachedSlot::update);
+		cursor = inventory.getChangeLog().getVersion();
 	}
 
-	public List<MalisisSlot> getSlots(boolean sendAll)
+	/**
+	 * Adds the changed slots to the {@link UpdateInventorySlotsMessage.Packet}.
+	 *
+	 * @param packet the packet
+	 * @param sendAll whether to add all the slots
+	 */
+	public void addChanges(UpdateInventorySlotsMessage.Packet packet, boolean sendAll)
 	{
-		return slotCache.stream()
-						.peek(CachedSlot::update)
-						.filter(cs -> sendAll || cs.hasChanged())
-						.map(CachedSlot::get)
-						.collect(Collectors.toList());
+		InventoryChangeLog changeLog = inventory.getChangeLog();
+		changeLog.update();
+		if (sendAll)
+			packet.addSlots(inventoryId, inventory.getSlots(), null);
+		else
+			changeLog.addChanges(packet, inventoryId, cursor);
+		cursor = changeLog.getVersion();
 	}
 
 	private void sendSlots(boolean sendAll)
 	{
-		List<MalisisSlot> changedSlots = getSlots(sendAll);
-		if (changedSlots.size() > 0)
-			UpdateInventorySlotsMessage.updateSlots(inventoryId, changedSlots, player, windowId);
+		UpdateInventorySlotsMessage.Packet packet = new UpdateInventorySlotsMessage.Packet(windowId);
+		addChanges(packet, sendAll);
+		if (!packet.isEmpty())
+			MalisisCore.network.sendTo(packet, player);
 	}
 
 	public void sendAll()
@@ -0,0 +1,156 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014 Ordinastie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.malisis.core.inventory.cache;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import net.malisis.core.inventory.MalisisInventory;
+import net.malisis.core.inventory.MalisisSlot;
+import net.malisis.core.inventory.message.UpdateInventorySlotsMessage;
+import net.minecraft.server.MinecraftServer;
+import net.minecraftforge.fml.common.FMLCommonHandler;
+
+/**
+ * The InventoryChangeLog detects the changes of the slots of a {@link MalisisInventory} for all the containers viewing it.<br>
+ * Slots are compared at most once per server tick, and each set of changes increments the version of the log. The changes of the last
+ * version are encoded once and shared by all the viewers whose cursor is on the previous version. Viewers further behind get the slots
+ * changed since their cursor encoded for them.
+ *
+ * @author Ordinastie
+ *
+ */
+public class InventoryChangeLog
+{
+	private final MalisisInventory inventory;
+	private final List<CachedSlot> slotCache;
+	/** Version at which each slot last changed. */
+	private final int[] slotVersions;
+	/** Current version. */
+	private int version = 0;
+	/** Server tick of the last update. */
+	private int lastTick = -1;
+	/** Encoded changes of the current version. */
+	private ByteBuf delta;
+	/** Inventory id the {@link #delta} was encoded with. */
+	private int deltaInventoryId;
+
+	public InventoryChangeLog(MalisisInventory inventory)
+	{
+		this.inventory = inventory;
+		List<MalisisSlot> slots = inventory.getSlots();
+		slotCache = new ArrayList<>(slots.size());
+		for (MalisisSlot slot : slots)
+			slotCache.add(new CachedSlot(slot));
+		slotVersions = new int[slotCache.size()];
+	}
+
+	/**
+	 * Gets the current version of this {@link InventoryChangeLog}.
+	 *
+	 * @return the version
+	 */
+	public int getVersion()
+	{
+		return version;
+	}
+
+	/**
+	 * Detects the changes of the slots since the last update.<br>
+	 * Does nothing if the log was already updated during the current server tick.
+	 */
+	public void update()
+	{
+		MinecraftServer server = FMLCommonHandler.instance().getMinecraftServerInstance();
+		if (server != null)
+		{
+			if (server.getTickCounter() == lastTick)
+				return;
+			lastTick = server.getTickCounter();
+		}
+
+		List<MalisisSlot> slots = null;
+		BitSet countOnly = null;
+		for (int i = 0; i < slotCache.size(); i++)
+		{
+			CachedSlot cs = slotCache.get(i);
+			cs.update();
+			if (!cs.hasChanged())
+				continue;
+
+			if (slots == null)
+				slots = new ArrayList<>();
+			if (cs.isCountOnly())
+			{
+				if (countOnly == null)
+					countOnly = new BitSet();
+				countOnly.set(slots.size());
+			}
+			slots.add(cs.get());
+			slotVersions[i] = version + 1;
+		}
+
+		if (slots == null)
+			return;
+
+		version++;
+		if (delta != null)
+			delta.release();
+		delta = Unpooled.buffer();
+		deltaInventoryId = inventory.getInventoryId();
+		UpdateInventorySlotsMessage.writeSlots(delta, deltaInventoryId, slots, countOnly);
+	}
+
+	/**
+	 * Adds to the {@link UpdateInventorySlotsMessage.Packet} the slots changed since the <i>cursor</i> version.<br>
+	 * The shared encoded changes are used when the cursor is on the previous version.
+	 *
+	 * @param packet the packet
+	 * @param inventoryId the id of the inventory in the container of the packet
+	 * @param cursor the version last sent to the container
+	 */
+	public void addChanges(UpdateInventorySlotsMessage.Packet packet, int inventoryId, int cursor)
+	{
+		if (cursor == version)
+			return;
+
+		if (cursor == version - 1 && inventoryId == deltaInventoryId)
+		{
+			packet.addSlots(delta);
+			return;
+		}
+
+		List<MalisisSlot> slots = new ArrayList<>();
+		for (int i = 0; i < slotCache.size(); i++)
+		{
+			if (slotVersions[i] > cursor)
+				slots.add(slotCache.get(i).get());
+		}
+		packet.addSlots(inventoryId, slots, null);
+	}
+}
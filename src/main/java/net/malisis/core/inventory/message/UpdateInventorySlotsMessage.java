@@ -24,11 +24,12 @@
 
 package net.malisis.core.inventory.message;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
-import java.util.Map.Entry;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import net.malisis.core.MalisisCore;
 import net.malisis.core.inventory.MalisisInventory;
 import net.malisis.core.inventory.MalisisInventoryContainer;
@@ -37,8 +38,8 @@ import net.malisis.core.network.IMalisisMessageHandler;
 import net.malisis.core.registry.AutoLoad;
 import net.malisis.core.util.Utils;
 import net.minecraft.client.entity.EntityPlayerSP;
-import net.minecraft.entity.player.EntityPlayerMP;
 import net.minecraft.inventory.Container;
+import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
 import net.minecraftforge.fml.common.network.ByteBufUtils;
 import net.minecraftforge.fml.common.network.simpleimpl.IMessage;
@@ -46,7 +47,10 @@ import net.minecraftforge.fml.common.network.simpleimpl.MessageContext;
 import net.minecraftforge.fml.relauncher.Side;
 
 /**
- * Message to update the slots in the opened {@link MalisisInventoryContainer} on the client.
+ * Message to update the slots in the opened {@link MalisisInventoryContainer} on the client.<br>
+ * All the changes of a container are sent in a single {@link Packet}, and the changes of an inventory are encoded once for all its
+ * viewers. Slot indexes are written as runs of contiguous slots with varints, and slots where only the stack size changed only send the
+ * item, metadata and size.
  *
  * @author Ordinastie
  *
@@ -56,6 +60,11 @@ public class UpdateInventorySlotsMessage implements IMalisisMessageHandler<Updat
 {
 	public static int PICKEDITEM = -2;
 
+	/** The full ItemStack is sent. */
+	private static final int FULL = 0;
+	/** Only the item, metadata and size of the ItemStack are sent. */
+	private static final int COUNT_ONLY = 1;
+
 	public UpdateInventorySlotsMessage()
 	{
 		MalisisCore.network.registerMessage(this, Packet.class, Side.CLIENT);
@@ -77,112 +86,238 @@ public class UpdateInventorySlotsMessage implements IMalisisMessageHandler<Updat
 			return;
 
 		MalisisInventoryContainer container = (MalisisInventoryContainer) c;
-		if (message.inventoryId == PICKEDITEM)
+		for (SlotUpdate update : message.updates)
 		{
-			container.setPickedItemStack(message.slots.get(-1));
-			return;
+			MalisisInventory inventory = container.getInventory(update.inventoryId);
+			if (inventory != null)
+				inventory.setItemStack(update.slotNumber, update.getItemStack(inventory.getItemStack(update.slotNumber)));
 		}
 
-		MalisisInventory inventory = container.getInventory(message.inventoryId);
-		if (inventory == null)
-			return;
-
-		for (Entry<Integer, ItemStack> entry : message.slots.entrySet())
-		{
-			Integer slotNumber = entry.getKey();
-			ItemStack itemStack = entry.getValue();
-
-			inventory.setItemStack(slotNumber, itemStack);
-		}
+		if (message.pickedItemStack != null)
+			container.setPickedItemStack(message.pickedItemStack);
 	}
 
 	/**
-	 * Sends a {@link Packet} to player to update the picked {@link ItemStack}.
+	 * Writes the slots of an inventory into the {@link ByteBuf}.<br>
+	 * Slots must be ordered by index. Slots set in <i>countOnly</i> only have their item, metadata and size written.
 	 *
-	 * @param itemStack the item stack
-	 * @param player the player
-	 * @param windowId the window id
+	 * @param buf the buf
+	 * @param inventoryId the inventory id
+	 * @param slots the slots
+	 * @param countOnly the count only slots, can be null
 	 */
-	public static void updatePickedItemStack(ItemStack itemStack, EntityPlayerMP player, int windowId)
+	public static void writeSlots(ByteBuf buf, int inventoryId, List<MalisisSlot> slots, BitSet countOnly)
 	{
-		Packet packet = new Packet(PICKEDITEM, windowId);
-		packet.draggedItemStack(itemStack);
-		MalisisCore.network.sendTo(packet, player);
+		int runs = 0;
+		for (int i = 0; i < slots.size(); i++)
+		{
+			if (i == 0 || slots.get(i).getSlotIndex() != slots.get(i - 1).getSlotIndex() + 1)
+				runs++;
+		}
+
+		ByteBufUtils.writeVarInt(buf, inventoryId + 1, 5); //player inventory is -1
+		ByteBufUtils.writeVarInt(buf, runs, 5);
+
+		int i = 0;
+		while (i < slots.size())
+		{
+			int start = i++;
+			while (i < slots.size() && slots.get(i).getSlotIndex() == slots.get(i - 1).getSlotIndex() + 1)
+				i++;
+
+			ByteBufUtils.writeVarInt(buf, slots.get(start).getSlotIndex(), 5);
+			ByteBufUtils.writeVarInt(buf, i - start, 5);
+			for (int j = start; j < i; j++)
+			{
+				ItemStack itemStack = slots.get(j).getItemStack();
+				if (countOnly != null && countOnly.get(j) && !itemStack.isEmpty())
+				{
+					buf.writeByte(COUNT_ONLY);
+					ByteBufUtils.writeVarInt(buf, Item.getIdFromItem(itemStack.getItem()), 5);
+					ByteBufUtils.writeVarInt(buf, itemStack.getMetadata(), 5);
+					ByteBufUtils.writeVarInt(buf, itemStack.getCount(), 5);
+				}
+				else
+				{
+					buf.writeByte(FULL);
+					ByteBufUtils.writeItemStack(buf, itemStack);
+				}
+			}
+		}
 	}
 
 	/**
-	 * Sends a {@link Packet} to player to update the inventory slots.
+	 * Reads the slots of an inventory written with {@link #writeSlots(ByteBuf, int, List, BitSet)}.
 	 *
-	 * @param inventoryId the inventory id
-	 * @param slots the slots
-	 * @param player the player
-	 * @param windowId the window id
+	 * @param buf the buf
+	 * @param updates the updates
 	 */
-	public static void updateSlots(int inventoryId, List<MalisisSlot> slots, EntityPlayerMP player, int windowId)
+	private static void readSlots(ByteBuf buf, List<SlotUpdate> updates)
 	{
-		Packet packet = new Packet(inventoryId, windowId);
-		for (MalisisSlot slot : slots)
-			packet.addSlot(slot);
-		MalisisCore.network.sendTo(packet, player);
+		int inventoryId = ByteBufUtils.readVarInt(buf, 5) - 1;
+		int runs = ByteBufUtils.readVarInt(buf, 5);
+		for (int r = 0; r < runs; r++)
+		{
+			int start = ByteBufUtils.readVarInt(buf, 5);
+			int length = ByteBufUtils.readVarInt(buf, 5);
+			for (int slotNumber = start; slotNumber < start + length; slotNumber++)
+			{
+				if (buf.readByte() == COUNT_ONLY)
+				{
+					Item item = Item.getItemById(ByteBufUtils.readVarInt(buf, 5));
+					int metadata = ByteBufUtils.readVarInt(buf, 5);
+					int count = ByteBufUtils.readVarInt(buf, 5);
+					updates.add(new SlotUpdate(inventoryId, slotNumber, new ItemStack(item, count, metadata), true));
+				}
+				else
+					updates.add(new SlotUpdate(inventoryId, slotNumber, ByteBufUtils.readItemStack(buf), false));
+			}
+		}
 	}
 
 	public static class Packet implements IMessage
 	{
-		private int inventoryId;
-		private HashMap<Integer, ItemStack> slots = new HashMap<>();
 		private int windowId;
+		/** Encoded slots, server side. */
+		private ByteBuf data;
+		/** Encoded slots shared with other packets, server side. */
+		private List<ByteBuf> sharedData;
+		/** Number of inventories encoded in {@link #data} and {@link #sharedData}. */
+		private int inventoryCount;
+		/** Picked ItemStack, null if unchanged. */
+		private ItemStack pickedItemStack;
+		/** Decoded slots, client side. */
+		private List<SlotUpdate> updates = new ArrayList<>();
 
 		public Packet()
 		{}
 
-		public Packet(int inventoryId, int windowId)
+		public Packet(int windowId)
 		{
-			this.inventoryId = inventoryId;
 			this.windowId = windowId;
 		}
 
-		public void addSlot(MalisisSlot slot)
+		/**
+		 * Adds the slots of an inventory to this {@link Packet}.
+		 *
+		 * @param inventoryId the inventory id
+		 * @param slots the slots, ordered by index
+		 * @param countOnly the slots where only the stack size changed, can be null
+		 */
+		public void addSlots(int inventoryId, List<MalisisSlot> slots, BitSet countOnly)
 		{
-			slots.put(slot.getSlotIndex(), slot.getItemStack());
+			if (slots.isEmpty())
+				return;
+			if (data == null)
+				data = Unpooled.buffer();
+			writeSlots(data, inventoryId, slots, countOnly);
+			inventoryCount++;
 		}
 
-		public void setSlots(HashMap<Integer, ItemStack> slots)
+		/**
+		 * Adds the slots of an inventory already encoded with {@link UpdateInventorySlotsMessage#writeSlots(ByteBuf, int, List, BitSet)}
+		 * to this {@link Packet}.<br>
+		 * The {@link ByteBuf} is retained until this {@link Packet} is written, so the same encoded data can be sent to several players.
+		 *
+		 * @param encoded the encoded slots
+		 */
+		public void addSlots(ByteBuf encoded)
 		{
-			if (slots != null)
-				this.slots = slots;
+			if (sharedData == null)
+				sharedData = new ArrayList<>();
+			sharedData.add(encoded.retainedDuplicate());
+			inventoryCount++;
 		}
 
-		public void draggedItemStack(ItemStack itemStack)
+		/**
+		 * Sets the picked {@link ItemStack} to send.
+		 *
+		 * @param itemStack the item stack
+		 */
+		public void setPickedItemStack(ItemStack itemStack)
 		{
-			slots.put(-1, itemStack);
+			pickedItemStack = itemStack;
+		}
+
+		/**
+		 * Checks if this {@link Packet} has nothing to send.
+		 *
+		 * @return true, if empty
+		 */
+		public boolean isEmpty()
+		{
+			return inventoryCount == 0 && pickedItemStack == null;
 		}
 
 		@Override
 		public void fromBytes(ByteBuf buf)
 		{
-			this.inventoryId = buf.readInt();
-			this.windowId = buf.readInt();
-			int size = buf.readInt();
+			windowId = ByteBufUtils.readVarInt(buf, 5);
+			if (buf.readBoolean())
+				pickedItemStack = ByteBufUtils.readItemStack(buf);
 
-			for (int i = 0; i < size; i++)
-				slots.put(buf.readInt(), ByteBufUtils.readItemStack(buf));
+			int count = ByteBufUtils.readVarInt(buf, 5);
+			for (int i = 0; i < count; i++)
+				readSlots(buf, updates);
 		}
 
 		@Override
 		public void toBytes(ByteBuf buf)
 		{
-			buf.writeInt(inventoryId);
-			buf.writeInt(windowId);
-			buf.writeInt(slots.size());
+			ByteBufUtils.writeVarInt(buf, windowId, 5);
+			buf.writeBoolean(pickedItemStack != null);
+			if (pickedItemStack != null)
+				ByteBufUtils.writeItemStack(buf, pickedItemStack);
 
-			for (Entry<Integer, ItemStack> entry : slots.entrySet())
+			ByteBufUtils.writeVarInt(buf, inventoryCount, 5);
+			if (data != null)
+				buf.writeBytes(data, data.readerIndex(), data.readableBytes());
+			if (sharedData != null)
 			{
-				Integer slotNumber = entry.getKey();
-				ItemStack itemStack = entry.getValue();
-
-				buf.writeInt(slotNumber);
-				ByteBufUtils.writeItemStack(buf, itemStack);
+				for (ByteBuf shared : sharedData)
+				{
+					buf.writeBytes(shared, shared.readerIndex(), shared.readableBytes());
+					shared.release();
+				}
+				sharedData = null;
 			}
 		}
 	}
+
+	/**
+	 * A decoded slot update.
+	 */
+	private static class SlotUpdate
+	{
+		private final int inventoryId;
+		private final int slotNumber;
+		private final ItemStack itemStack;
+		private final boolean countOnly;
+
+		public SlotUpdate(int inventoryId, int slotNumber, ItemStack itemStack, boolean countOnly)
+		{
+			this.inventoryId = inventoryId;
+			this.slotNumber = slotNumber;
+			this.itemStack = itemStack;
+			this.countOnly = countOnly;
+		}
+
+		/**
+		 * Gets the {@link ItemStack} to set in the slot.<br>
+		 * For count only updates, the current stack is kept with its NBT if it holds the same item.
+		 *
+		 * @param current the current
+		 * @return the item stack
+		 */
+		public ItemStack getItemStack(ItemStack current)
+		{
+			if (!countOnly || current.isEmpty() || current.getItem() != itemStack.getItem()
+					|| current.getMetadata() != itemStack.getMetadata())
+				return itemStack;
+
+			ItemStack is = current.copy();
+			is.setCount(itemStack.getCount());
+			return is;
+		}
+	}
 }
@@ -54,4 +54,11 @@ public class PlayerInventorySlot extends MalisisSlot
 		player.inventory.setInventorySlotContents(index, itemStack);
 	}
 
+	@Override
+	public boolean isChangeTracked()
+	{
+		//the stacks are also modified by the vanilla inventory
+		return false;
+	}
+
 }
@@ -31,6 +31,7 @@ import org.apache.commons.lang3.StringUtils;
 import com.google.common.collect.Lists;
 
 import net.malisis.core.MalisisCore;
+import net.malisis.core.block.ComponentIndex;
 import net.malisis.core.block.IComponent;
 import net.malisis.core.block.IComponentProvider;
 import net.malisis.core.block.IRegisterable;
@@ -52,6 +53,7 @@ import net.minecraft.item.Item;
 public class MalisisItem extends Item implements IComponentProvider, IRegisterable<Item>
 {
 	protected final List<IComponent> components = Lists.newArrayList();
+	protected final ComponentIndex componentIndex = new ComponentIndex(() -> components);
 
 	@Override
 	public MalisisItem setName(String name)
@@ -65,12 +67,19 @@ public class MalisisItem extends Item implements IComponentProvider, IRegisterab
 	public void addComponent(IComponent component)
 	{
 		components.add(component);
+		componentIndex.invalidate();
 	}
 
 	@Override
 	public List<IComponent> getComponents()
 	{
-		return components;
+		return componentIndex.getComponents();
+	}
+
+	@Override
+	public <T> T getComponent(Class<T> type)
+	{
+		return componentIndex.getComponent(type);
 	}
 
 	public void setTexture(String textureName)
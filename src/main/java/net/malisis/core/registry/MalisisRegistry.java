@@ -27,6 +27,8 @@ package net.malisis.core.registry;
 import static com.google.common.base.Preconditions.*;
 import static net.malisis.core.registry.Registries.*;
 
+import java.util.function.Predicate;
+
 import com.google.common.collect.ImmutableMap;
 
 import net.malisis.core.MalisisCore;
@@ -177,6 +179,19 @@ public class MalisisRegistry
 		preSetBlockRegistry.registerCallback(callback, option);
 	}
 
+	/**
+	 * Registers a {@link ISetBlockCallback} with the specified {@link CallbackOption} to be called before a {@link Block} is placed in the
+	 * world, only if the old or the new {@code Block} matches the <code>blockFilter</code>.
+	 *
+	 * @param callback the callback
+	 * @param option the option
+	 * @param blockFilter the block filter
+	 */
+	public static void onPreSetBlock(ISetBlockCallback callback, CallbackOption<ISetBlockCallbackPredicate> option, Predicate<Block> blockFilter)
+	{
+		preSetBlockRegistry.registerCallback(callback, option, checkNotNull(blockFilter));
+	}
+
 	/**
 	 * Registers a {@link ISetBlockCallback} with the specified {@link CallbackOption} to be called before a {@link Block} is placed in the
 	 * world.
@@ -189,6 +204,19 @@ public class MalisisRegistry
 		postSetBlockRegistry.registerCallback(callback, option);
 	}
 
+	/**
+	 * Registers a {@link ISetBlockCallback} with the specified {@link CallbackOption} to be called after a {@link Block} is placed in the
+	 * world, only if the old or the new {@code Block} matches the <code>blockFilter</code>.
+	 *
+	 * @param callback the callback
+	 * @param option the option
+	 * @param blockFilter the block filter
+	 */
+	public static void onPostSetBlock(ISetBlockCallback callback, CallbackOption<ISetBlockCallbackPredicate> option, Predicate<Block> blockFilter)
+	{
+		postSetBlockRegistry.registerCallback(callback, option, checkNotNull(blockFilter));
+	}
+
 	/**
 	 * Registers a {@link IBlockRenderer} for the {@link Block}, and its {@link Item} if any.
 	 *
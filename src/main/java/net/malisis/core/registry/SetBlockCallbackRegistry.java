@@ -24,22 +24,193 @@
 
 package net.malisis.core.registry;
 
+import java.util.List;
+import java.util.function.Predicate;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Ordering;
+
 import net.malisis.core.registry.SetBlockCallbackRegistry.ISetBlockCallback;
 import net.malisis.core.registry.SetBlockCallbackRegistry.ISetBlockCallbackPredicate;
 import net.malisis.core.util.callback.CallbackRegistry;
 import net.malisis.core.util.callback.CallbackResult;
 import net.malisis.core.util.callback.ICallback;
+import net.malisis.core.util.callback.ICallback.CallbackOption;
 import net.malisis.core.util.callback.ICallback.ICallbackPredicate;
+import net.malisis.core.util.callback.ICallback.Priority;
+import net.minecraft.block.Block;
 import net.minecraft.block.state.IBlockState;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.chunk.Chunk;
 
 /**
+ * The {@link SetBlockCallbackRegistry} handles the {@link ISetBlockCallback ISetBlockCallbacks} called for every block change in the
+ * world.<br>
+ * The callbacks are processed through a typed path that doesn't allocate when no callback matches. Callbacks can be registered with a
+ * {@link Block} filter, in which case they are only called if either the old or the new block matches it. The filters results are cached
+ * per block id so that block changes not involving any interesting block skip the whole pipeline. The caches are cleared by
+ * {@link #invalidateFilters()} when the components of a block change.
+ *
  * @author Ordinastie
  *
  */
 public class SetBlockCallbackRegistry extends CallbackRegistry<ISetBlockCallback, ISetBlockCallbackPredicate, Void>
 {
+	/** Typed callbacks sorted by priority. */
+	private volatile SetBlockCallback[] setBlockCallbacks = new SetBlockCallback[0];
+	/** Filter matching blocks interesting for at least one callback. Null if a callback has no filter. */
+	private volatile BlockFilter anyFilter = new BlockFilter(b -> false);
+	/** Incremented every time the cached results of the {@link BlockFilter BlockFilters} become stale. */
+	private static volatile int filterVersion = 0;
+
+	@Override
+	public void registerCallback(ISetBlockCallback callback, CallbackOption<ISetBlockCallbackPredicate> option)
+	{
+		registerCallback(callback, option, null);
+	}
+
+	/**
+	 * Registers a {@link ISetBlockCallback} to be called when the {@link ISetBlockCallbackPredicate} returns true, and either the old or
+	 * the new {@link Block} matches the <code>blockFilter</code>.<br>
+	 * The filter result is cached per block and should only depend on the block itself and its components.
+	 *
+	 * @param callback the callback
+	 * @param option the option
+	 * @param blockFilter the block filter, or null to be called for every block
+	 */
+	public void registerCallback(ISetBlockCallback callback, CallbackOption<ISetBlockCallbackPredicate> option, Predicate<Block> blockFilter)
+	{
+		super.registerCallback(callback, option);
+
+		List<SetBlockCallback> unsorted = Lists.newArrayList(setBlockCallbacks);
+		unsorted.add(new SetBlockCallback(callback, option, blockFilter != null ? new BlockFilter(blockFilter) : null));
+		List<SetBlockCallback> list = Ordering	.natural()
+												.reverse()
+												.onResultOf(Priority::ordinal)
+												.onResultOf((SetBlockCallback c) -> c.priority)
+												.sortedCopy(unsorted);
+		setBlockCallbacks = list.toArray(new SetBlockCallback[0]);
+
+		anyFilter = list.stream().anyMatch(c -> c.filter == null) ? null
+				: new BlockFilter(b -> list.stream().anyMatch(c -> c.filter.predicate.test(b)));
+	}
+
+	/**
+	 * Clears the cached results of the {@link Block} filters of all the registries.<br>
+	 * Must be called whenever the components of a {@code Block} change.
+	 */
+	public static void invalidateFilters()
+	{
+		filterVersion++;
+	}
+
+	@Override
+	public CallbackResult<Void> processCallbacks(Object... params)
+	{
+		return processCallbacks((Chunk) params[0], (BlockPos) params[1], (IBlockState) params[2], (IBlockState) params[3]);
+	}
+
+	/**
+	 * Processes the registered {@link ISetBlockCallback ISetBlockCallbacks} according to their priority.
+	 *
+	 * @param chunk the chunk
+	 * @param pos the pos
+	 * @param oldState the old state
+	 * @param newState the new state
+	 * @return the callback result
+	 */
+	public CallbackResult<Void> processCallbacks(Chunk chunk, BlockPos pos, IBlockState oldState, IBlockState newState)
+	{
+		Block oldBlock = oldState.getBlock();
+		Block newBlock = newState.getBlock();
+		BlockFilter any = anyFilter;
+		if (any != null && !any.test(oldBlock) && !any.test(newBlock))
+			return CallbackResult.noResult();
+
+		CallbackResult<Void> result = CallbackResult.noResult();
+		Priority lastPriority = Priority.HIGHEST;
+		for (SetBlockCallback cb : setBlockCallbacks)
+		{
+			if (result.isCancelled() && cb.priority != lastPriority)
+				return result;
+
+			if (cb.filter != null && !cb.filter.test(oldBlock) && !cb.filter.test(newBlock))
+				continue;
+
+			if (cb.predicate == null || cb.predicate.apply(chunk, pos, oldState, newState))
+			{
+				result = reduce.apply(result, cb.callback.call(chunk, pos, oldState, newState));
+				if (result.isForcedCancelled())
+					return result;
+
+				lastPriority = cb.priority;
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Holds a registered {@link ISetBlockCallback} with its unpacked {@link CallbackOption}.
+	 */
+	private static class SetBlockCallback
+	{
+		private final ISetBlockCallback callback;
+		private final ISetBlockCallbackPredicate predicate;
+		private final Priority priority;
+		private final BlockFilter filter;
+
+		public SetBlockCallback(ISetBlockCallback callback, CallbackOption<ISetBlockCallbackPredicate> option, BlockFilter filter)
+		{
+			this.callback = callback;
+			this.predicate = option.getPredicate();
+			this.priority = option.getPriority();
+			this.filter = filter;
+		}
+	}
+
+	/**
+	 * {@link Predicate} for {@link Block} with its results cached by block id.
+	 */
+	private static class BlockFilter
+	{
+		private static final byte UNKNOWN = 0;
+		private static final byte MATCH = 1;
+		private static final byte NO_MATCH = 2;
+
+		private final Predicate<Block> predicate;
+		private volatile byte[] cache = new byte[4096];
+		private volatile int version = filterVersion;
+
+		public BlockFilter(Predicate<Block> predicate)
+		{
+			this.predicate = predicate;
+		}
+
+		public boolean test(Block block)
+		{
+			int current = filterVersion;
+			if (version != current)
+			{
+				cache = new byte[4096];
+				version = current;
+			}
+
+			byte[] cache = this.cache;
+			int id = Block.getIdFromBlock(block);
+			if (id < 0 || id >= cache.length)
+				return predicate.test(block);
+
+			byte b = cache[id];
+			if (b == UNKNOWN)
+			{
+				b = predicate.test(block) ? MATCH : NO_MATCH;
+				cache[id] = b;
+			}
+			return b == MATCH;
+		}
+	}
+
 	public static interface ISetBlockCallback extends ICallback<Void>
 	{
 		@Override
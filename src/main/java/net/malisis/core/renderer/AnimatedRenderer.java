@@ -24,24 +24,32 @@
 
 package net.malisis.core.renderer;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
-import com.google.common.collect.Maps;
-
+import gnu.trove.set.hash.TLongHashSet;
 import net.malisis.core.block.IComponent;
 import net.malisis.core.registry.MalisisRegistry;
 import net.malisis.core.renderer.component.AnimatedModelComponent;
-import net.malisis.core.util.BlockPosUtils;
 import net.malisis.core.util.EntityUtils;
 import net.malisis.core.util.Point;
 import net.malisis.core.util.callback.CallbackResult;
 import net.malisis.core.util.callback.ICallback.CallbackOption;
 import net.minecraft.block.state.IBlockState;
+import net.minecraft.client.renderer.RenderGlobal;
+import net.minecraft.client.renderer.chunk.RenderChunk;
 import net.minecraft.client.renderer.culling.Frustum;
 import net.minecraft.client.renderer.culling.ICamera;
 import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.BlockRenderLayer;
+import net.minecraft.util.math.AxisAlignedBB;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.MathHelper;
 import net.minecraft.util.math.Vec3d;
 import net.minecraft.world.IBlockAccess;
 import net.minecraft.world.chunk.Chunk;
@@ -57,16 +65,24 @@ import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
  */
 public class AnimatedRenderer extends MalisisRenderer<TileEntity>
 {
-	/** Map of {@link ISortedRenderable} per {@link BlockPos}. */
-	private static Map<BlockPos, IAnimatedRenderable> animatedRenderables = Maps.newHashMap();
+	/** Map of {@link IAnimatedRenderable} per {@link BlockPos}, per packed {@link ChunkPos}. */
+	private static Map<Long, Map<BlockPos, IAnimatedRenderable>> animatedRenderables = new ConcurrentHashMap<>();
+	/** Packed positions of the render chunks visible this frame. */
+	private static TLongHashSet visibleChunks = new TLongHashSet();
+	/** Whether {@link #visibleChunks} was filled by the {@link RenderGlobal} this frame. */
+	private static boolean visibleChunksSet = false;
 	static
 	{
 		//check renderable to be removed when a block changes.
-		MalisisRegistry.onPostSetBlock(AnimatedRenderer::removeRenderable, CallbackOption.of());
+		MalisisRegistry.onPostSetBlock(	AnimatedRenderer::removeRenderable,
+										CallbackOption.of(),
+										b -> IComponent.getComponent(AnimatedModelComponent.class, b) != null);
 	}
 
 	/** Current {@link IAnimatedRenderable} being rendered. */
 	IAnimatedRenderable renderable;
+	/** Reusable holders for the translucent {@link IAnimatedRenderable} to sort. */
+	private final List<TranslucentRenderable> translucents = new ArrayList<>();
 
 	public AnimatedRenderer()
 	{
@@ -87,7 +103,7 @@ public class AnimatedRenderer extends MalisisRenderer<TileEntity>
 	@Override
 	public boolean shouldRender(RenderWorldLastEvent event, IBlockAccess world)
 	{
-		return animatedRenderables.size() > 0;
+		return !animatedRenderables.isEmpty();
 	}
 
 	@Override
@@ -98,23 +114,132 @@ public class AnimatedRenderer extends MalisisRenderer<TileEntity>
 		//camera.setPosition(viewOffset.x, viewOffset.y, viewOffset.z);
 
 		renderType = RenderType.ANIMATED;
-		animatedRenderables	.values()
-							.stream()
-							.filter(r -> r.inFrustrum(camera))
-							.sorted((r1, r2) -> -BlockPosUtils.compare(viewOffset, r1.getPos(), r2.getPos()))
-							.forEach(this::renderRenderable);
+		//opaque renderables are drawn right away, only translucent ones need to be sorted
+		int count = 0;
+		for (Map<BlockPos, IAnimatedRenderable> chunk : animatedRenderables.values())
+		{
+			for (IAnimatedRenderable r : chunk.values())
+			{
+				if (!isChunkVisible(r) || !r.inFrustrum(camera))
+					continue;
+
+				IBlockState state = r.getWorld().getBlockState(r.getPos());
+				if (state.getBlock().getBlockLayer() != BlockRenderLayer.TRANSLUCENT)
+				{
+					renderRenderable(r, state);
+					continue;
+				}
+
+				if (count == translucents.size())
+					translucents.add(new TranslucentRenderable());
+				translucents.get(count++).set(r, state, r.getPos().distanceSq(viewOffset.x, viewOffset.y, viewOffset.z));
+			}
+		}
+
+		if (count > 0)
+		{
+			List<TranslucentRenderable> list = translucents.subList(0, count);
+			list.sort(TranslucentRenderable.FAR_FIRST);
+			for (TranslucentRenderable t : list)
+			{
+				renderRenderable(t.renderable, t.state);
+				t.set(null, null, 0);
+			}
+		}
 		renderType = RenderType.WORLD_LAST;
+		visibleChunksSet = false;
+	}
+
+	/**
+	 * Checks whether one of the render chunks overlapped by the rendering bounds of the {@link IAnimatedRenderable} was found visible by
+	 * the {@link RenderGlobal} this frame.<br>
+	 * Always true if the visible render chunks are not known.
+	 *
+	 * @param renderable the renderable
+	 * @return true, if visible
+	 */
+	private static boolean isChunkVisible(IAnimatedRenderable renderable)
+	{
+		if (!visibleChunksSet)
+			return true;
+
+		BlockPos pos = renderable.getPos();
+		if (visibleChunks.contains(sectionKey(pos.getX() >> 4, pos.getY() >> 4, pos.getZ() >> 4)))
+			return true;
+
+		//the renderable may be drawn outside of its own render chunk
+		AxisAlignedBB aabb = renderable.getRenderingBounds();
+		int minY = Math.max(MathHelper.floor(aabb.minY) >> 4, 0);
+		int maxY = Math.min(MathHelper.floor(aabb.maxY) >> 4, 15);
+		for (int x = MathHelper.floor(aabb.minX) >> 4; x <= MathHelper.floor(aabb.maxX) >> 4; x++)
+			for (int y = minY; y <= maxY; y++)
+				for (int z = MathHelper.floor(aabb.minZ) >> 4; z <= MathHelper.floor(aabb.maxZ) >> 4; z++)
+					if (visibleChunks.contains(sectionKey(x, y, z)))
+						return true;
+		return false;
+	}
+
+	/**
+	 * Clears the render chunks visible for the previous frame.<br>
+	 * Called from {@link RenderGlobal#setupTerrain(net.minecraft.entity.Entity, double, ICamera, int, boolean)}.
+	 *
+	 * @return true, if the visible render chunks should be added for this frame
+	 */
+	public static boolean clearVisibleChunks()
+	{
+		visibleChunks.clear();
+		visibleChunksSet = !animatedRenderables.isEmpty();
+		return visibleChunksSet;
+	}
+
+	/**
+	 * Adds a {@link RenderChunk} visible for this frame.<br>
+	 * Called from {@link RenderGlobal#setupTerrain(net.minecraft.entity.Entity, double, ICamera, int, boolean)}.
+	 *
+	 * @param renderChunk the render chunk
+	 */
+	public static void addVisibleChunk(RenderChunk renderChunk)
+	{
+		BlockPos pos = renderChunk.getPosition();
+		visibleChunks.add(sectionKey(pos.getX() >> 4, pos.getY() >> 4, pos.getZ() >> 4));
+	}
+
+	/**
+	 * Packs the render chunk coordinates into a long, with the same layout as {@link BlockPos#toLong()}.
+	 *
+	 * @param x the x
+	 * @param y the y
+	 * @param z the z
+	 * @return the long
+	 */
+	private static long sectionKey(int x, int y, int z)
+	{
+		return ((long) x & 0x3FFFFFFL) << 38 | ((long) y & 0xFFFL) << 26 | (long) z & 0x3FFFFFFL;
+	}
+
+	/**
+	 * Gets the packed {@link ChunkPos} for the {@link BlockPos}.
+	 *
+	 * @param pos the pos
+	 * @return the long
+	 */
+	private static long chunkKey(BlockPos pos)
+	{
+		return ChunkPos.asLong(pos.getX() >> 4, pos.getZ() >> 4);
 	}
 
 	/**
 	 * Renders an {@link IAnimatedRenderable}.
 	 *
 	 * @param renderable the renderable
+	 * @param state the state
 	 */
-	private void renderRenderable(IAnimatedRenderable renderable)
+	private void renderRenderable(IAnimatedRenderable renderable, IBlockState state)
 	{
 		this.renderable = renderable;
-		set(renderable.getWorld(), renderable.getPos());
+		this.world = renderable.getWorld();
+		this.pos = renderable.getPos();
+		set(state);
 		posOffset = new Vec3d(pos.getX(), pos.getY(), pos.getZ());
 
 		renderable.renderAnimated(block, this);
@@ -128,7 +253,8 @@ public class AnimatedRenderer extends MalisisRenderer<TileEntity>
 	@SubscribeEvent
 	public void onChunkUnload(ChunkEvent.Unload event)
 	{
-		animatedRenderables.keySet().removeIf(p -> (p.getX() >> 4) == event.getChunk().x && (p.getZ() >> 4) == event.getChunk().z);
+		if (event.getWorld().isRemote)
+			animatedRenderables.remove(ChunkPos.asLong(event.getChunk().x, event.getChunk().z));
 	}
 
 	@SubscribeEvent
@@ -157,7 +283,10 @@ public class AnimatedRenderer extends MalisisRenderer<TileEntity>
 
 		AnimatedModelComponent comp = IComponent.getComponent(AnimatedModelComponent.class, oldState.getBlock());
 		if (comp != null)
-			animatedRenderables.remove(pos);
+			animatedRenderables.computeIfPresent(ChunkPos.asLong(chunk.x, chunk.z), (k, map) -> {
+				map.remove(pos);
+				return map.isEmpty() ? null : map;
+			});
 
 		return CallbackResult.noResult();
 	}
@@ -170,7 +299,8 @@ public class AnimatedRenderer extends MalisisRenderer<TileEntity>
 	 */
 	public static Optional<IAnimatedRenderable> getRenderable(BlockPos pos)
 	{
-		return Optional.ofNullable(animatedRenderables.get(pos));
+		Map<BlockPos, IAnimatedRenderable> map = animatedRenderables.get(chunkKey(pos));
+		return Optional.ofNullable(map != null ? map.get(pos) : null);
 	}
 
 	/**
@@ -181,8 +311,32 @@ public class AnimatedRenderer extends MalisisRenderer<TileEntity>
 	 */
 	public static void registerRenderable(IBlockAccess world, BlockPos pos, AnimatedModelComponent amc)
 	{
-		IAnimatedRenderable r = animatedRenderables.get(pos);
-		if (r == null)
-			animatedRenderables.put(pos, amc.createRenderable(world, pos));
+		//called from the chunk rendering threads
+		//chunk map is created and filled atomically so it can't be lost to a concurrent removeRenderable()
+		animatedRenderables.compute(chunkKey(pos), (k, map) -> {
+			if (map == null)
+				map = new ConcurrentHashMap<>();
+			map.computeIfAbsent(pos, p -> amc.createRenderable(world, pos));
+			return map;
+		});
+	}
+
+	/**
+	 * Holds a translucent {@link IAnimatedRenderable} with its distance to the view, to be sorted without recomputing the distance.
+	 */
+	private static class TranslucentRenderable
+	{
+		private static final Comparator<TranslucentRenderable> FAR_FIRST = (t1, t2) -> Double.compare(t2.distance, t1.distance);
+
+		private IAnimatedRenderable renderable;
+		private IBlockState state;
+		private double distance;
+
+		private void set(IAnimatedRenderable renderable, IBlockState state, double distance)
+		{
+			this.renderable = renderable;
+			this.state = state;
+			this.distance = distance;
+		}
 	}
-}
\ No newline at end of file
+}
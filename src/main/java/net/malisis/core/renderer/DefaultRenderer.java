@@ -24,14 +24,21 @@
 
 package net.malisis.core.renderer;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.vecmath.Matrix4f;
 
+import net.malisis.core.block.BoundingBoxCache.Caching;
 import net.malisis.core.block.IBoundingBox;
 import net.malisis.core.block.IComponent;
+import net.malisis.core.block.MalisisBlock;
 import net.malisis.core.renderer.component.AnimatedModelComponent;
+import net.malisis.core.renderer.element.BakedShape;
+import net.malisis.core.renderer.element.BakedShape.BakedFace;
 import net.malisis.core.renderer.element.Shape;
 import net.malisis.core.renderer.element.face.SouthFace;
 import net.malisis.core.renderer.element.shape.Cube;
@@ -133,6 +140,8 @@ public class DefaultRenderer
 
 		private Shape shape = new Cube();
 		private RenderParameters rp = new RenderParameters();
+		/** Baked shapes per {@link IBlockState}, shared with the copies of this renderer. */
+		private final Map<IBlockState, BakedShape> bakedShapes = new ConcurrentHashMap<>();
 
 		@Override
 		public boolean isGui3d()
@@ -173,6 +182,17 @@ public class DefaultRenderer
 				return;
 			}
 
+			boolean bake = renderType == RenderType.BLOCK && canBake();
+			if (bake)
+			{
+				BakedShape baked = bakedShapes.get(blockState);
+				if (baked != null && baked.isValid(vertexFormat))
+				{
+					drawBakedShape(baked);
+					return;
+				}
+			}
+
 			AxisAlignedBB[] aabbs;
 			if (block instanceof IBoundingBox)
 			{
@@ -185,6 +205,7 @@ public class DefaultRenderer
 				rp.useBlockBounds.set(true);
 			}
 
+			List<BakedFace> faces = bake ? new ArrayList<>() : null;
 			for (AxisAlignedBB aabb : aabbs)
 			{
 				if (aabb != null)
@@ -193,9 +214,33 @@ public class DefaultRenderer
 					//shape = new Shape(new SouthFace());
 					shape.resetState().limit(aabb);
 					rp.renderBounds.set(aabb);
-					drawShape(shape, rp);
+					if (bake)
+						bakeFaces(shape, rp, faces);
+					else
+						drawShape(shape, rp);
 				}
 			}
+
+			if (bake)
+			{
+				BakedShape baked = new BakedShape(getVertexLayout(), faces.toArray(new BakedFace[0]));
+				bakedShapes.put(blockState, baked);
+				drawBakedShape(baked);
+			}
+		}
+
+		/**
+		 * Checks whether the current block can be rendered from a {@link BakedShape}.<br>
+		 * Its render bounding boxes and icons must only depend on the {@link IBlockState}.
+		 *
+		 * @return true, if successful
+		 */
+		private boolean canBake()
+		{
+			if (block instanceof IBoundingBox
+					&& (!(block instanceof MalisisBlock) || ((MalisisBlock) block).getBoundingBoxCaching() != Caching.STATE))
+				return false;
+			return BakedShape.canBake(getIconProvider(rp));
 		}
 	}
 
@@ -26,9 +26,11 @@ package net.malisis.core.renderer;
 
 import java.util.Map;
 
+import net.malisis.core.block.IBoundingBox;
 import net.malisis.core.util.Timer;
 import net.minecraft.block.Block;
 import net.minecraft.client.renderer.culling.ICamera;
+import net.minecraft.util.math.AxisAlignedBB;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.IBlockAccess;
 
@@ -50,6 +52,16 @@ public interface IAnimatedRenderable
 
 	public Map<String, Timer> getTimers();
 
+	/**
+	 * Gets the bounds in which this {@link IAnimatedRenderable} is drawn, in world coordinates.
+	 *
+	 * @return the rendering bounds
+	 */
+	public default AxisAlignedBB getRenderingBounds()
+	{
+		return IBoundingBox.getRenderingBounds(getWorld(), getPos());
+	}
+
 	public boolean inFrustrum(ICamera camera);
 
 	public void renderAnimated(Block block, AnimatedRenderer renderer);
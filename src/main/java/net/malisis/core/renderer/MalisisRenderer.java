@@ -24,7 +24,11 @@
 
 package net.malisis.core.renderer;
 
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Set;
 
 import javax.vecmath.Matrix4f;
@@ -40,9 +44,12 @@ import net.malisis.core.block.IBoundingBox;
 import net.malisis.core.block.IComponent;
 import net.malisis.core.block.ISmartCull;
 import net.malisis.core.registry.MalisisRegistry;
+import net.malisis.core.renderer.element.BakedShape;
+import net.malisis.core.renderer.element.BakedShape.BakedFace;
 import net.malisis.core.renderer.element.Face;
 import net.malisis.core.renderer.element.Shape;
 import net.malisis.core.renderer.element.Vertex;
+import net.malisis.core.renderer.element.VertexLayout;
 import net.malisis.core.renderer.element.shape.Cube;
 import net.malisis.core.renderer.font.FontOptions;
 import net.malisis.core.renderer.font.MalisisFont;
@@ -98,7 +105,7 @@ import net.minecraftforge.fml.client.registry.ClientRegistry;
  * @author Ordinastie
  *
  */
-public class MalisisRenderer<T extends TileEntity> extends TileEntitySpecialRenderer<T> implements IBlockRenderer, IRenderWorldLast
+public class MalisisRenderer<T extends TileEntity> extends TileEntitySpecialRenderer<T> implements IBlockRenderer, IRenderWorldLast, Cloneable
 {
 	/** Batched buffer reference. */
 	protected static final BufferBuilder batchedBuffer = ((Tessellator) Silenced.get(() -> AsmUtils	.changeFieldAccess(	TileEntityRendererDispatcher.class,
@@ -165,6 +172,24 @@ public class MalisisRenderer<T extends TileEntity> extends TileEntitySpecialRend
 	/** Whether at least one vertex has been drawn. */
 	protected boolean vertexDrawn = false;
 
+	/** Reusable {@link RenderParameters} holding the merged parameters of the face being drawn. */
+	protected RenderParameters faceParams = new RenderParameters();
+	/** Reusable {@link RenderParameters} holding the merged parameters of the face being textured. */
+	protected RenderParameters textureParams = new RenderParameters();
+	/** Reusable vertex data for the {@link BakedFace} being drawn. */
+	private int[] bakedData;
+	/** {@link VertexLayout} of the current {@link #vertexFormat}. */
+	private VertexLayout vertexLayout;
+	/** Reusable data for the {@link Vertex} being drawn. */
+	private int[] vertexData;
+	/** {@link Vertex} drawn in place of null vertexes. */
+	private Vertex emptyVertex = new Vertex(0, 0, 0);
+	/** Snapshot of the blocks around the block being rendered. */
+	private Neighbourhood neighbourhood = new Neighbourhood();
+
+	/** Copies of this {@link MalisisRenderer} confined to the threads rendering blocks. */
+	private final ThreadLocal<MalisisRenderer<T>> threadRenderers = ThreadLocal.withInitial(this::copy);
+
 	/**
 	 * Instantiates a new {@link MalisisRenderer}.
 	 */
@@ -204,6 +229,11 @@ public class MalisisRenderer<T extends TileEntity> extends TileEntitySpecialRend
 		return tileEntity;
 	}
 
+	public VertexFormat getVertexFormat()
+	{
+		return vertexFormat;
+	}
+
 	//#region
 
 	// #region set()
@@ -225,6 +255,7 @@ public class MalisisRenderer<T extends TileEntity> extends TileEntitySpecialRend
 		this.destroyBlockProgress = null;
 		this.tranformType = null;
 		this.posOffset = null;
+		this.neighbourhood.clear();
 	}
 
 	/**
@@ -361,9 +392,86 @@ public class MalisisRenderer<T extends TileEntity> extends TileEntitySpecialRend
 
 	// #end
 
+	/**
+	 * Creates a copy of this {@link MalisisRenderer} to be used by a single chunk rendering thread.<br>
+	 * The copy shares the configuration of this renderer but holds its own rendering state, and will call {@link #initialize()} again on
+	 * first use. The {@link Shape} and {@link RenderParameters} fields declared by subclasses are deep copied. Subclasses holding other
+	 * mutable objects not created in {@link #initialize()} should override this method to give the copy its own instances.
+	 *
+	 * @return the malisis renderer
+	 */
+	@SuppressWarnings("unchecked")
+	protected MalisisRenderer<T> copy()
+	{
+		try
+		{
+			MalisisRenderer<T> renderer = (MalisisRenderer<T>) super.clone();
+			renderer.initialized = false;
+			renderer.faceParams = new RenderParameters();
+			renderer.textureParams = new RenderParameters();
+			renderer.bakedData = null;
+			renderer.vertexData = null;
+			renderer.emptyVertex = new Vertex(0, 0, 0);
+			renderer.neighbourhood = new Neighbourhood();
+			renderer.reset();
+			copyFields(renderer);
+			return renderer;
+		}
+		catch (CloneNotSupportedException | IllegalAccessException e)
+		{
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Gives the copy its own instances of the {@link Shape} and {@link RenderParameters} fields declared by the subclasses of
+	 * {@link MalisisRenderer}.
+	 *
+	 * @param renderer the copy
+	 * @throws IllegalAccessException if a field could not be copied
+	 */
+	private void copyFields(MalisisRenderer<T> renderer) throws IllegalAccessException
+	{
+		for (Class<?> clazz = getClass(); clazz != MalisisRenderer.class; clazz = clazz.getSuperclass())
+		{
+			for (Field field : clazz.getDeclaredFields())
+			{
+				if (Modifier.isStatic(field.getModifiers()))
+					continue;
+
+				field.setAccessible(true);
+				Object value = field.get(this);
+				if (value instanceof Shape && field.getType().isAssignableFrom(Shape.class))
+					field.set(renderer, new Shape((Shape) value));
+				else if (value instanceof RenderParameters)
+					field.set(renderer, new RenderParameters((RenderParameters) value));
+			}
+		}
+	}
+
 	//#region IBlockRenderer
+	/**
+	 * Renders the block into the {@link BufferBuilder}.<br>
+	 * Blocks are rendered from the chunk rendering threads, so the rendering is done by the copy of this {@link MalisisRenderer} confined to
+	 * the current thread instead of locking this instance.
+	 */
 	@Override
-	public synchronized boolean renderBlock(BufferBuilder wr, IBlockAccess world, BlockPos pos, IBlockState state)
+	public boolean renderBlock(BufferBuilder wr, IBlockAccess world, BlockPos pos, IBlockState state)
+	{
+		return threadRenderers.get().renderBlockInThread(wr, world, pos, state);
+	}
+
+	/**
+	 * Renders the block using the state of this {@link MalisisRenderer}.<br>
+	 * Only called on the copy confined to the current thread.
+	 *
+	 * @param wr the wr
+	 * @param world the world
+	 * @param pos the pos
+	 * @param state the state
+	 * @return true, if at least one vertex was drawn
+	 */
+	private boolean renderBlockInThread(BufferBuilder wr, IBlockAccess world, BlockPos pos, IBlockState state)
 	{
 		this.buffer = wr;
 		set(world, state.getBlock(), pos, state);
@@ -379,7 +487,7 @@ public class MalisisRenderer<T extends TileEntity> extends TileEntitySpecialRend
 
 	//#region IItemRenderer
 	@Override
-	public synchronized boolean renderItem(ItemStack itemStack, float partialTick)
+	public boolean renderItem(ItemStack itemStack, float partialTick)
 	{
 		if (tranformType == TransformType.FIRST_PERSON_RIGHT_HAND || tranformType == TransformType.FIRST_PERSON_LEFT_HAND)
 		{
@@ -432,7 +540,7 @@ public class MalisisRenderer<T extends TileEntity> extends TileEntitySpecialRend
 	 * @param partialTick the partial tick
 	 */
 	@Override
-	public synchronized void render(T te, double x, double y, double z, float partialTick, int destroyStage, float f)
+	public void render(T te, double x, double y, double z, float partialTick, int destroyStage, float f)
 	{
 		if (te.getWorld().getBlockState(te.getPos()).getBlock() == Blocks.AIR)
 			return;
@@ -516,6 +624,8 @@ public class MalisisRenderer<T extends TileEntity> extends TileEntitySpecialRend
 		_initialize();
 		vertexDrawn = false;
 		this.renderType = renderType;
+		if (world != null && pos != null)
+			neighbourhood.set(world, pos, blockState);
 
 		if (renderType == RenderType.BLOCK)
 		{
@@ -897,7 +1007,7 @@ public class MalisisRenderer<T extends TileEntity> extends TileEntitySpecialRend
 		if (params.deductParameters.get())
 			face.deductParameters();
 
-		params = RenderParameters.merge(params, face.getParameters());
+		params = RenderParameters.merge(params, face.getParameters(), faceParams);
 
 		if (!shouldRenderFace(face, params))
 			return;
@@ -934,7 +1044,7 @@ public class MalisisRenderer<T extends TileEntity> extends TileEntitySpecialRend
 	protected void drawVertex(Vertex vertex, int number, RenderParameters params)
 	{
 		if (vertex == null)
-			vertex = new Vertex(0, 0, 0);
+			vertex = emptyVertex;
 
 		// brightness
 		int brightness = calcVertexBrightness(vertex, number, params);
@@ -952,11 +1062,136 @@ public class MalisisRenderer<T extends TileEntity> extends TileEntitySpecialRend
 		if (params != null && renderType == RenderType.ITEM)
 			vertex.setNormal(params.direction.get());
 
-		buffer.addVertexData(vertex.getVertexData(vertexFormat, posOffset));
+		VertexLayout layout = getVertexLayout();
+		if (vertexData == null || vertexData.length != layout.getSize())
+			vertexData = new int[layout.getSize()];
+		vertex.writeVertexData(layout, posOffset, vertexData, 0);
+		buffer.addVertexData(vertexData);
 
 		vertexDrawn = true;
 	}
 
+	/**
+	 * Gets the {@link VertexLayout} for the current {@link VertexFormat}.
+	 *
+	 * @return the vertex layout
+	 */
+	protected VertexLayout getVertexLayout()
+	{
+		VertexLayout layout = vertexLayout;
+		if (layout == null || layout.getVertexFormat() != vertexFormat)
+		{
+			layout = new VertexLayout(vertexFormat);
+			vertexLayout = layout;
+		}
+		return layout;
+	}
+
+	/**
+	 * Bakes a {@link Shape} with specified {@link RenderParameters} for the current {@link IBlockState}.<br>
+	 * The shape is transformed and textured, and its faces are packed in the current {@link VertexFormat}. Only faces with 4 vertexes are
+	 * baked.
+	 *
+	 * @param s the s
+	 * @param params the params
+	 * @return the baked shape
+	 */
+	public BakedShape bakeShape(Shape s, RenderParameters params)
+	{
+		List<BakedFace> faces = new ArrayList<>();
+		bakeFaces(s, params, faces);
+		return new BakedShape(getVertexLayout(), faces.toArray(new BakedFace[0]));
+	}
+
+	/**
+	 * Bakes the {@link Face faces} of a {@link Shape} with specified {@link RenderParameters} and adds them to the list.
+	 *
+	 * @param s the s
+	 * @param params the params
+	 * @param faces the faces
+	 */
+	public void bakeFaces(Shape s, RenderParameters params, List<BakedFace> faces)
+	{
+		s.applyMatrix();
+
+		for (Face face : s.getFaces())
+		{
+			if (face == null || face.getVertexes().length != 4)
+				continue;
+
+			RenderParameters p = params != null ? params : face.getParameters();
+			if (p.deductParameters.get())
+				face.deductParameters();
+
+			p = RenderParameters.merge(p, face.getParameters());
+			if (p.applyTexture.get())
+				applyTexture(face, p);
+
+			Face baked = new Face(face);
+			if (!p.usePerVertexAlpha.get())
+			{
+				for (Vertex vertex : baked.getVertexes())
+					vertex.setAlpha(p.alpha.get());
+			}
+			faces.add(new BakedFace(baked, p, getVertexLayout()));
+		}
+	}
+
+	/**
+	 * Draws a {@link BakedShape}.<br>
+	 * The shape should be {@link BakedShape#isValid(VertexFormat) valid} for the current {@link VertexFormat}.
+	 *
+	 * @param shape the shape
+	 */
+	public void drawBakedShape(BakedShape shape)
+	{
+		for (BakedFace face : shape.getFaces())
+			drawBakedFace(shape, face);
+	}
+
+	/**
+	 * Draws a {@link BakedFace}.<br>
+	 * The baked vertex data is copied as is, only the position, color and brightness of the vertexes are computed.
+	 *
+	 * @param shape the shape
+	 * @param bakedFace the baked face
+	 */
+	protected void drawBakedFace(BakedShape shape, BakedFace bakedFace)
+	{
+		Face face = bakedFace.getFace();
+		RenderParameters params = bakedFace.getParameters();
+		if (bakedFace.getCullFace() != null && !shouldRenderFace(face, params))
+			return;
+
+		baseBrightness = getBaseBrightness(params);
+
+		int[] data = bakedFace.getData();
+		if (bakedData == null || bakedData.length != data.length)
+			bakedData = new int[data.length];
+		System.arraycopy(data, 0, bakedData, 0, data.length);
+
+		VertexLayout layout = shape.getLayout();
+		int size = layout.getSize();
+		Vertex[] vertexes = face.getVertexes();
+		for (int i = 0; i < vertexes.length; i++)
+		{
+			int index = i * size;
+			if (posOffset != null)
+			{
+				bakedData[index] = Float.floatToRawIntBits((float) (Float.intBitsToFloat(bakedData[index]) + posOffset.x));
+				bakedData[index + 1] = Float.floatToRawIntBits((float) (Float.intBitsToFloat(bakedData[index + 1]) + posOffset.y));
+				bakedData[index + 2] = Float.floatToRawIntBits((float) (Float.intBitsToFloat(bakedData[index + 2]) + posOffset.z));
+			}
+			if (layout.getColorIndex() != -1)
+				bakedData[index + layout.getColorIndex()] = Vertex.toRGBA(calcVertexColor(vertexes[i], i, params), vertexes[i].getAlpha());
+			if (layout.getBrightnessIndex() != -1)
+				bakedData[index + layout.getBrightnessIndex()] = calcVertexBrightness(vertexes[i], i, params);
+		}
+
+		buffer.addVertexData(bakedData);
+		vertexDrawn = true;
+	}
+
 	/**
 	 * Draws a string at the specified coordinates, with color and shadow. The string gets translated. Uses FontRenderer.drawString().
 	 *
@@ -1026,7 +1261,7 @@ public class MalisisRenderer<T extends TileEntity> extends TileEntitySpecialRend
 		if (side == EnumFacing.EAST && bounds.maxX < 1)
 			return true;
 
-		return !world.getBlockState(pos.offset(side)).isOpaqueCube();
+		return !getNeighbourhood().getState(side).isOpaqueCube();
 	}
 
 	/**
@@ -1054,8 +1289,7 @@ public class MalisisRenderer<T extends TileEntity> extends TileEntitySpecialRend
 		//shape.applyMatrix();
 		for (Face f : shape.getFaces())
 		{
-			RenderParameters rp = RenderParameters.merge(params, f.getParameters());
-			applyTexture(f, rp);
+			applyTexture(f, RenderParameters.merge(params, f.getParameters(), textureParams));
 		}
 	}
 
@@ -1173,12 +1407,14 @@ public class MalisisRenderer<T extends TileEntity> extends TileEntitySpecialRend
 		float factor = 1;
 		//calculate AO
 		if (params.calculateAOColor.get() && aoMatrix != null && Minecraft.isAmbientOcclusionEnabled()
-				&& blockState.getLightValue(world, pos) == 0 && params.direction.get() != null)
+				&& getNeighbourhood().getLightValue() == 0 && params.direction.get() != null)
 		{
-			factor = getBlockAmbientOcclusion(world, pos.offset(params.direction.get()));
+			Neighbourhood n = getNeighbourhood();
+			EnumFacing dir = params.direction.get();
+			factor = n.getAmbientOcclusion(dir.getFrontOffsetX(), dir.getFrontOffsetY(), dir.getFrontOffsetZ());
 
 			for (int i = 0; i < aoMatrix.length; i++)
-				factor += getBlockAmbientOcclusion(world, pos.add(aoMatrix[i][0], aoMatrix[i][1], aoMatrix[i][2]));
+				factor += n.getAmbientOcclusion(aoMatrix[i][0], aoMatrix[i][1], aoMatrix[i][2]);
 
 			factor /= (aoMatrix.length + 1);
 		}
@@ -1211,8 +1447,8 @@ public class MalisisRenderer<T extends TileEntity> extends TileEntitySpecialRend
 
 		if (block != null)
 		{
-			if (world != null && blockState.getLightValue(world, pos) != 0)
-				return blockState.getLightValue(world, pos) << 4;
+			if (world != null && pos != null && getNeighbourhood().getLightValue() != 0)
+				return getNeighbourhood().getLightValue() << 4;
 			else if (blockState.getLightValue() != 0)
 				return blockState.getLightValue() << 4;
 		}
@@ -1226,31 +1462,22 @@ public class MalisisRenderer<T extends TileEntity> extends TileEntitySpecialRend
 
 		//no direction, we can only use current block brightness
 		if (params.direction.get() == null && block != null)
-			return blockState.getPackedLightmapCoords(world, pos);
+			return getNeighbourhood().getPackedLight(0, 0, 0);
 
 		AxisAlignedBB bounds = getRenderBounds(params);
 		EnumFacing dir = params.direction.get();
-		BlockPos p = pos;
 
 		//use the brightness of the block next to it
 		//TODO: check if face is actually at bounds
 		if (bounds != null)
 		{
-			if (dir == EnumFacing.WEST && bounds.minX <= 0)
-				p = p.west();
-			else if (dir == EnumFacing.EAST && bounds.maxX >= 1)
-				p = p.east();
-			else if (dir == EnumFacing.NORTH && bounds.minZ <= 0)
-				p = p.north();
-			else if (dir == EnumFacing.SOUTH && bounds.maxZ >= 1)
-				p = p.south();
-			else if (dir == EnumFacing.DOWN && bounds.minY <= 0)
-				p = p.down();
-			else if (dir == EnumFacing.UP && bounds.maxY >= 1)
-				p = p.up();
+			if ((dir == EnumFacing.WEST && bounds.minX <= 0) || (dir == EnumFacing.EAST && bounds.maxX >= 1)
+					|| (dir == EnumFacing.NORTH && bounds.minZ <= 0) || (dir == EnumFacing.SOUTH && bounds.maxZ >= 1)
+					|| (dir == EnumFacing.DOWN && bounds.minY <= 0) || (dir == EnumFacing.UP && bounds.maxY >= 1))
+				return getNeighbourhood().getPackedLight(dir.getFrontOffsetX(), dir.getFrontOffsetY(), dir.getFrontOffsetZ());
 		}
 
-		return getMixedBrightnessForBlock(world, p);
+		return getNeighbourhood().getPackedLight(0, 0, 0);
 	}
 
 	/**
@@ -1275,17 +1502,16 @@ public class MalisisRenderer<T extends TileEntity> extends TileEntitySpecialRend
 		int[][] aoMatrix = (int[][]) params.aoMatrix.get(number);
 		if (!params.calculateBrightness.get() || aoMatrix == null) //no data
 			return baseBrightness;
-		if (!Minecraft.isAmbientOcclusionEnabled() || blockState.getLightValue(world, pos) != 0) // emit light
+		Neighbourhood n = getNeighbourhood();
+		if (!Minecraft.isAmbientOcclusionEnabled() || n.getLightValue() != 0) // emit light
 			return baseBrightness;
 
-		int[] b = new int[Math.max(3, aoMatrix.length)];
-
-		for (int i = 0; i < b.length; i++)
-			b[i] += getMixedBrightnessForBlock(world, pos.add(aoMatrix[i][0], aoMatrix[i][1], aoMatrix[i][2]));
-
-		int brightness = getAoBrightness(b[0], b[1], b[2], baseBrightness);
+		//only the first 3 blocks are used
+		int b1 = n.getPackedLight(aoMatrix[0][0], aoMatrix[0][1], aoMatrix[0][2]);
+		int b2 = n.getPackedLight(aoMatrix[1][0], aoMatrix[1][1], aoMatrix[1][2]);
+		int b3 = n.getPackedLight(aoMatrix[2][0], aoMatrix[2][1], aoMatrix[2][2]);
 
-		return brightness;
+		return getAoBrightness(b1, b2, b3, baseBrightness);
 	}
 
 	/**
@@ -1323,6 +1549,19 @@ public class MalisisRenderer<T extends TileEntity> extends TileEntitySpecialRend
 		return world.getBlockState(pos).getAmbientOcclusionLightValue();
 	}
 
+	/**
+	 * Gets the {@link Neighbourhood} snapshot of the block currently rendered.<br>
+	 * The snapshot is reset if the world, position or state changed since it was filled.
+	 *
+	 * @return the neighbourhood
+	 */
+	protected Neighbourhood getNeighbourhood()
+	{
+		if (!neighbourhood.isFor(world, pos, blockState))
+			neighbourhood.set(world, pos, blockState);
+		return neighbourhood;
+	}
+
 	/**
 	 * Gets the mix brightness for a block (sky + block source).
 	 *
@@ -0,0 +1,222 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014 Ordinastie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.malisis.core.renderer;
+
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.util.EnumFacing;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.BlockPos.MutableBlockPos;
+import net.minecraft.world.IBlockAccess;
+
+/**
+ * The Neighbourhood is a snapshot of the 3x3x3 blocks around the block being rendered.<br>
+ * The {@link IBlockState}, ambient occlusion light value and packed light of each neighbour are queried from the world at most once per
+ * block and indexed by their offset from the center, so that the AO matrix of every vertex can be resolved without creating any
+ * {@link BlockPos}.<br>
+ * Offsets outside the snapshot are queried directly from the world.<br>
+ * A Neighbourhood is not thread safe and is meant to be used by a single {@link MalisisRenderer}.
+ *
+ * @author Ordinastie
+ */
+public class Neighbourhood
+{
+	private static final int SIZE = 27;
+	private static final int CENTER = 13;
+
+	/** Scratch position for the world queries. */
+	private final MutableBlockPos scratch = new MutableBlockPos();
+	private final IBlockState[] states = new IBlockState[SIZE];
+	private final float[] ambientOcclusions = new float[SIZE];
+	private final int[] packedLights = new int[SIZE];
+	/** Bitmask of the states already queried. */
+	private int loadedStates;
+	/** Bitmask of the ambient occlusion values already queried. */
+	private int loadedAmbientOcclusions;
+	/** Bitmask of the packed lights already queried. */
+	private int loadedPackedLights;
+	/** Light value of the center block, or -1 if not queried yet. */
+	private int lightValue = -1;
+
+	private IBlockAccess world;
+	private BlockPos pos;
+
+	/**
+	 * Sets the world, the center position and the {@link IBlockState} rendered at the center of this {@link Neighbourhood}, discarding the
+	 * previous snapshot.
+	 *
+	 * @param world the world
+	 * @param pos the pos
+	 * @param state the state
+	 */
+	public void set(IBlockAccess world, BlockPos pos, IBlockState state)
+	{
+		this.world = world;
+		this.pos = pos;
+		states[CENTER] = state;
+		loadedStates = state != null ? 1 << CENTER : 0;
+		loadedAmbientOcclusions = 0;
+		loadedPackedLights = 0;
+		lightValue = -1;
+	}
+
+	/**
+	 * Checks whether this {@link Neighbourhood} is the snapshot for the world, position and {@link IBlockState}.
+	 *
+	 * @param world the world
+	 * @param pos the pos
+	 * @param state the state
+	 * @return true, if successful
+	 */
+	public boolean isFor(IBlockAccess world, BlockPos pos, IBlockState state)
+	{
+		return this.world == world && this.pos == pos && states[CENTER] == state;
+	}
+
+	/**
+	 * Clears this {@link Neighbourhood}.
+	 */
+	public void clear()
+	{
+		set(null, null, null);
+	}
+
+	/**
+	 * Gets the index of the offset in the snapshot.
+	 *
+	 * @param x the x
+	 * @param y the y
+	 * @param z the z
+	 * @return the index, or -1 if outside of the snapshot
+	 */
+	private static int index(int x, int y, int z)
+	{
+		if (x < -1 || x > 1 || y < -1 || y > 1 || z < -1 || z > 1)
+			return -1;
+		return (x + 1) + (y + 1) * 3 + (z + 1) * 9;
+	}
+
+	/**
+	 * Gets the scratch position at the offset from the center.<br>
+	 * The returned position is reused and must not be kept.
+	 *
+	 * @param x the x
+	 * @param y the y
+	 * @param z the z
+	 * @return the block pos
+	 */
+	public BlockPos pos(int x, int y, int z)
+	{
+		return scratch.setPos(pos.getX() + x, pos.getY() + y, pos.getZ() + z);
+	}
+
+	/**
+	 * Gets the {@link IBlockState} at the offset from the center.
+	 *
+	 * @param x the x
+	 * @param y the y
+	 * @param z the z
+	 * @return the state
+	 */
+	public IBlockState getState(int x, int y, int z)
+	{
+		int index = index(x, y, z);
+		if (index == -1)
+			return world.getBlockState(pos(x, y, z));
+
+		if ((loadedStates & (1 << index)) == 0)
+		{
+			states[index] = world.getBlockState(pos(x, y, z));
+			loadedStates |= 1 << index;
+		}
+		return states[index];
+	}
+
+	/**
+	 * Gets the {@link IBlockState} next to the center on the side.
+	 *
+	 * @param side the side
+	 * @return the state
+	 */
+	public IBlockState getState(EnumFacing side)
+	{
+		return getState(side.getFrontOffsetX(), side.getFrontOffsetY(), side.getFrontOffsetZ());
+	}
+
+	/**
+	 * Gets the ambient occlusion light value at the offset from the center.
+	 *
+	 * @param x the x
+	 * @param y the y
+	 * @param z the z
+	 * @return the ambient occlusion
+	 */
+	public float getAmbientOcclusion(int x, int y, int z)
+	{
+		int index = index(x, y, z);
+		if (index == -1)
+			return getState(x, y, z).getAmbientOcclusionLightValue();
+
+		if ((loadedAmbientOcclusions & (1 << index)) == 0)
+		{
+			ambientOcclusions[index] = getState(x, y, z).getAmbientOcclusionLightValue();
+			loadedAmbientOcclusions |= 1 << index;
+		}
+		return ambientOcclusions[index];
+	}
+
+	/**
+	 * Gets the packed light (sky + block) at the offset from the center.
+	 *
+	 * @param x the x
+	 * @param y the y
+	 * @param z the z
+	 * @return the packed light
+	 */
+	public int getPackedLight(int x, int y, int z)
+	{
+		int index = index(x, y, z);
+		if (index == -1)
+			return getState(x, y, z).getPackedLightmapCoords(world, pos(x, y, z));
+
+		if ((loadedPackedLights & (1 << index)) == 0)
+		{
+			packedLights[index] = getState(x, y, z).getPackedLightmapCoords(world, pos(x, y, z));
+			loadedPackedLights |= 1 << index;
+		}
+		return packedLights[index];
+	}
+
+	/**
+	 * Gets the light value emitted by the block at the center.
+	 *
+	 * @return the light value
+	 */
+	public int getLightValue()
+	{
+		if (lightValue == -1)
+			lightValue = getState(0, 0, 0).getLightValue(world, pos);
+		return lightValue;
+	}
+}
@@ -27,36 +27,62 @@ package net.malisis.core.renderer;
 import java.lang.reflect.Array;
 
 /**
+ * A {@link Parameter} holds a value and its default.<br>
+ * The parameters of a {@link RenderParameters} are views over a single value stored in it, while parameters created with
+ * {@link #Parameter(Object)} hold their own value.
  *
  * @author Ordinastie
  * @param <T> type of value held by the {@link Parameter}
  */
 public class Parameter<T> implements Cloneable
 {
-	/** Default value. */
+	/** {@link RenderParameters} holding the value, null for standalone parameters. */
+	private final RenderParameters owner;
+
+	/** Index of the value in the owner. */
+	private final int index;
+
+	/** Default value, for standalone parameters. */
 	private T defaultValue;
 
-	/** Current alue. */
+	/** Current value, for standalone parameters. */
 	private T value;
 
 	/**
-	 * Instantiates a new parameter.
+	 * Instantiates a new standalone parameter.
 	 *
 	 * @param defaultValue the default value
 	 */
 	public Parameter(T defaultValue)
 	{
+		this.owner = null;
+		this.index = -1;
 		this.defaultValue = defaultValue;
 	}
 
+	/**
+	 * Instantiates a new parameter viewing the value stored in a {@link RenderParameters}.
+	 *
+	 * @param owner the owner
+	 * @param index the index
+	 */
+	Parameter(RenderParameters owner, int index)
+	{
+		this.owner = owner;
+		this.index = index;
+	}
+
 	/**
 	 * Gets the default value.
 	 *
 	 * @return the default
 	 */
+	@SuppressWarnings("unchecked")
 	public T getDefault()
 	{
-		return defaultValue;
+		if (owner == null)
+			return defaultValue;
+		return (T) RenderParameters.getDefault(index);
 	}
 
 	/**
@@ -64,9 +90,12 @@ public class Parameter<T> implements Cloneable
 	 *
 	 * @return the value
 	 */
+	@SuppressWarnings("unchecked")
 	public T getValue()
 	{
-		return value;
+		if (owner == null)
+			return value;
+		return (T) owner.getValue(index);
 	}
 
 	/**
@@ -74,7 +103,10 @@ public class Parameter<T> implements Cloneable
 	 */
 	public void reset()
 	{
-		value = null;
+		if (owner == null)
+			value = null;
+		else
+			owner.setValue(index, null);
 	}
 
 	/**
@@ -82,9 +114,12 @@ public class Parameter<T> implements Cloneable
 	 *
 	 * @return the value
 	 */
+	@SuppressWarnings("unchecked")
 	public T get()
 	{
-		return value != null ? value : defaultValue;
+		if (owner == null)
+			return value != null ? value : defaultValue;
+		return (T) owner.get(index);
 	}
 
 	/**
@@ -94,7 +129,10 @@ public class Parameter<T> implements Cloneable
 	 */
 	public void set(T value)
 	{
-		this.value = value;
+		if (owner == null)
+			this.value = value;
+		else
+			owner.setValue(index, value);
 	}
 
 	/**
@@ -105,6 +143,7 @@ public class Parameter<T> implements Cloneable
 	 */
 	public Object get(int index)
 	{
+		Object value = getValue();
 		if (value == null)
 			return value;
 		if (value != null && !(value instanceof Object[]))
@@ -126,27 +165,26 @@ public class Parameter<T> implements Cloneable
 	public void merge(Parameter<?> parameter)
 	{
 		if (parameter.getValue() != null)
-			value = (T) parameter.getValue();
+			set((T) parameter.getValue());
 	}
 
 	@Override
 	public String toString()
 	{
-		return value + " [" + defaultValue + "]";
+		return getValue() + " [" + getDefault() + "]";
 	}
 
-	@SuppressWarnings("unchecked")
+	/**
+	 * Clones this {@link Parameter}.<br>
+	 * The clone is a standalone parameter holding the current value and default of this {@link Parameter}.
+	 *
+	 * @return the parameter
+	 */
 	@Override
 	protected Parameter<T> clone()
 	{
-		try
-		{
-			return (Parameter<T>) super.clone();
-		}
-		catch (CloneNotSupportedException e)
-		{
-			e.printStackTrace();
-		}
-		return null;
+		Parameter<T> parameter = new Parameter<>(getDefault());
+		parameter.value = getValue();
+		return parameter;
 	}
 }
@@ -24,8 +24,7 @@
 
 package net.malisis.core.renderer;
 
-import java.util.LinkedList;
-import java.util.List;
+import java.util.Arrays;
 
 import net.malisis.core.block.component.DirectionalComponent;
 import net.malisis.core.renderer.animation.transformation.ITransformable;
@@ -35,73 +34,156 @@ import net.minecraft.util.EnumFacing;
 import net.minecraft.util.math.AxisAlignedBB;
 
 /**
+ * {@link RenderParameters} holds the values of the parameters used for the rendering.<br>
+ * Values are stored in a flat structure : a bitmask of the parameters explicitly set, the boolean values packed in a bitmask, and an array
+ * for the other values. The public {@link Parameter} fields are views over that storage.<br>
+ * Merging is done with mask arithmetic and doesn't allocate, so a single instance can be reused with
+ * {@link #merge(RenderParameters, RenderParameters, RenderParameters)}.
+ *
  * @author Ordinastie
  *
  */
 public class RenderParameters implements ITransformable.Color, ITransformable.Alpha, ITransformable.Brightness, Cloneable
 {
-	/** List of parameters inside this {@link RenderParameters}. */
-	protected List<Parameter<?>> listParams;
+	private static final int RENDER_ALL_FACES = 0;
+	private static final int USE_BLOCK_BOUNDS = 1;
+	private static final int RENDER_BOUNDS = 2;
+	private static final int USE_CUSTOM_TEXTURE = 3;
+	private static final int APPLY_TEXTURE = 4;
+	private static final int ICON = 5;
+	private static final int ICON_PROVIDER = 6;
+	private static final int USE_WORLD_SENSITIVE_ICON = 7;
+	private static final int USE_TEXTURE = 8;
+	private static final int INTERPOLATE_UV = 9;
+	private static final int ROTATE_ICON = 10;
+	private static final int CALCULATE_AO_COLOR = 11;
+	private static final int CALCULATE_BRIGHTNESS = 12;
+	private static final int USE_PER_VERTEX_COLOR = 13;
+	private static final int USE_PER_VERTEX_ALPHA = 14;
+	private static final int USE_PER_VERTEX_BRIGHTNESS = 15;
+	private static final int USE_ENVIRONMENT_BRIGHTNESS = 16;
+	private static final int USE_NORMALS = 17;
+	private static final int COLOR_MULTIPLIER = 18;
+	private static final int COLOR_FACTOR = 19;
+	private static final int BRIGHTNESS = 20;
+	private static final int ALPHA = 21;
+	private static final int DIRECTION = 22;
+	private static final int TEXTURE_SIDE = 23;
+	private static final int AO_MATRIX = 24;
+	private static final int FLIP_U = 25;
+	private static final int FLIP_V = 26;
+	private static final int DEDUCT_PARAMETERS = 27;
+	private static final int COUNT = 28;
+
+	/** Default values for each parameter. */
+	private static final Object[] DEFAULTS = new Object[COUNT];
+	/** Mask of the parameters holding boolean values. */
+	private static final int BOOLEANS;
+
+	static
+	{
+		DEFAULTS[RENDER_ALL_FACES] = false;
+		DEFAULTS[USE_BLOCK_BOUNDS] = true;
+		DEFAULTS[RENDER_BOUNDS] = null;
+		DEFAULTS[USE_CUSTOM_TEXTURE] = false;
+		DEFAULTS[APPLY_TEXTURE] = true;
+		DEFAULTS[ICON] = null;
+		DEFAULTS[ICON_PROVIDER] = null;
+		DEFAULTS[USE_WORLD_SENSITIVE_ICON] = true;
+		DEFAULTS[USE_TEXTURE] = true;
+		DEFAULTS[INTERPOLATE_UV] = true;
+		DEFAULTS[ROTATE_ICON] = true;
+		DEFAULTS[CALCULATE_AO_COLOR] = true;
+		DEFAULTS[CALCULATE_BRIGHTNESS] = true;
+		DEFAULTS[USE_PER_VERTEX_COLOR] = false;
+		DEFAULTS[USE_PER_VERTEX_ALPHA] = false;
+		DEFAULTS[USE_PER_VERTEX_BRIGHTNESS] = false;
+		DEFAULTS[USE_ENVIRONMENT_BRIGHTNESS] = true;
+		DEFAULTS[USE_NORMALS] = false;
+		DEFAULTS[COLOR_MULTIPLIER] = null;
+		DEFAULTS[COLOR_FACTOR] = 1.0F;
+		DEFAULTS[BRIGHTNESS] = 15728640; // 983055 - 15728640
+		DEFAULTS[ALPHA] = 255;
+		DEFAULTS[DIRECTION] = null;
+		DEFAULTS[TEXTURE_SIDE] = null;
+		DEFAULTS[AO_MATRIX] = null;
+		DEFAULTS[FLIP_U] = false;
+		DEFAULTS[FLIP_V] = false;
+		DEFAULTS[DEDUCT_PARAMETERS] = false;
+
+		int mask = 0;
+		for (int i = 0; i < COUNT; i++)
+			if (DEFAULTS[i] instanceof Boolean)
+				mask |= 1 << i;
+		BOOLEANS = mask;
+	}
+
+	/** Mask of the parameters explicitly set. */
+	private int set;
+	/** Values of the boolean parameters. */
+	private int booleans;
+	/** Values of the other parameters. */
+	private final Object[] values = new Object[COUNT];
 
 	/** Defines whether to render all faces even if shoudSideBeRendered is false */
-	public Parameter<Boolean> renderAllFaces = new Parameter<>(false);
+	public Parameter<Boolean> renderAllFaces = new Parameter<>(this, RENDER_ALL_FACES);
 
 	/** Defines whether to use the block bounding box instead of renderBounds (Block Level) */
-	public Parameter<Boolean> useBlockBounds = new Parameter<>(true);
+	public Parameter<Boolean> useBlockBounds = new Parameter<>(this, USE_BLOCK_BOUNDS);
 
 	/** Defines the rendering bounds to limit the vertex inside (Block Level) */
-	public Parameter<AxisAlignedBB> renderBounds = new Parameter<>(null);
+	public Parameter<AxisAlignedBB> renderBounds = new Parameter<>(this, RENDER_BOUNDS);
 
 	/** Define whether a custom texture for drawing. It disable default icon behavior. A ResourceLocation need to be bound. */
-	public Parameter<Boolean> useCustomTexture = new Parameter<>(false);
+	public Parameter<Boolean> useCustomTexture = new Parameter<>(this, USE_CUSTOM_TEXTURE);
 
 	/** Define whether to apply texture UV for the shape (Block level) */
-	public Parameter<Boolean> applyTexture = new Parameter<>(true);
+	public Parameter<Boolean> applyTexture = new Parameter<>(this, APPLY_TEXTURE);
 
 	/** Defines an {@link IIconProvider} to be used to get the icon for the faces. (Block Level) */
-	public Parameter<IIconProvider> iconProvider = new Parameter<>(null);
+	public Parameter<IIconProvider> iconProvider = new Parameter<>(this, ICON_PROVIDER);
 
 	/** Defines a {@link Icon} to be used for the rendering. */
-	public Parameter<Icon> icon = new Parameter<>(null);
+	public Parameter<Icon> icon = new Parameter<>(this, ICON);
 
 	/** Defines whether to use block.getIcon(world, x, y, z, side) instead of block.getIcon(side, metadata) to get the IIcon */
-	public Parameter<Boolean> useWorldSensitiveIcon = new Parameter<>(true);
+	public Parameter<Boolean> useWorldSensitiveIcon = new Parameter<>(this, USE_WORLD_SENSITIVE_ICON);
 
 	/** Defines whether to use a texture (will call addVertexWithUV instead of addVertex) */
-	public Parameter<Boolean> useTexture = new Parameter<>(true);
+	public Parameter<Boolean> useTexture = new Parameter<>(this, USE_TEXTURE);
 
 	/** Defines whether to calculate interpolated textures coordinates depending on block bounds (Block Level) */
-	public Parameter<Boolean> interpolateUV = new Parameter<>(true);
+	public Parameter<Boolean> interpolateUV = new Parameter<>(this, INTERPOLATE_UV);
 
 	/** Defines whether to automatically rotate the icons for {@link DirectionalComponent} */
-	public Parameter<Boolean> rotateIcon = new Parameter<>(true);
+	public Parameter<Boolean> rotateIcon = new Parameter<>(this, ROTATE_ICON);
 
 	/** Defines whether to calculate ambient occlusion color or not (Block Level) */
-	public Parameter<Boolean> calculateAOColor = new Parameter<>(true);
+	public Parameter<Boolean> calculateAOColor = new Parameter<>(this, CALCULATE_AO_COLOR);
 
 	/** Defines whether to calculate brightness or not (Block Level) */
-	public Parameter<Boolean> calculateBrightness = new Parameter<>(true);
+	public Parameter<Boolean> calculateBrightness = new Parameter<>(this, CALCULATE_BRIGHTNESS);
 
 	/** Define whether to override each vertex color. If false, FaceParams.colorMultiplier will be used instead (Block Level) */
-	public Parameter<Boolean> usePerVertexColor = new Parameter<>(false);
+	public Parameter<Boolean> usePerVertexColor = new Parameter<>(this, USE_PER_VERTEX_COLOR);
 
 	/** Define whether to override each vertex alpha. If false, FaceParams.alpha will be used instead (Block Level) */
-	public Parameter<Boolean> usePerVertexAlpha = new Parameter<>(false);
+	public Parameter<Boolean> usePerVertexAlpha = new Parameter<>(this, USE_PER_VERTEX_ALPHA);
 
 	/** Define whether to override each vertex brightness. If false, FaceParams.brightness will be used instead (Block Level) */
-	public Parameter<Boolean> usePerVertexBrightness = new Parameter<>(false);
+	public Parameter<Boolean> usePerVertexBrightness = new Parameter<>(this, USE_PER_VERTEX_BRIGHTNESS);
 
 	/** Defines whether to use the block mixBlockBrightness (if false, RenderParameters.brightness will be used) (Block Level) */
-	public Parameter<Boolean> useEnvironmentBrightness = new Parameter<>(true);
+	public Parameter<Boolean> useEnvironmentBrightness = new Parameter<>(this, USE_ENVIRONMENT_BRIGHTNESS);
 
 	/** Defines whether to use the defined normals */
-	public Parameter<Boolean> useNormals = new Parameter<>(false);
+	public Parameter<Boolean> useNormals = new Parameter<>(this, USE_NORMALS);
 
 	/**
 	 * Defines the color to apply to the face (useful for grass and leaves) usePerVertexColor must be false (Block Level).<br>
 	 * Overrides the Block.colorMultiplier() and Block.getRenderColor()
 	 */
-	public Parameter<Integer> colorMultiplier = new Parameter<>(null);
+	public Parameter<Integer> colorMultiplier = new Parameter<>(this, COLOR_MULTIPLIER);
 
 	/**
 	 * Defines the color factor for the face (Block Level). Used for shading the faces depending on their orientation : <br>
@@ -110,39 +192,37 @@ public class RenderParameters implements ITransformable.Color, ITransformable.Al
 	 * - TOP : 1<br>
 	 * - BOTTOM : 0.5<br>
 	 */
-	public Parameter<Float> colorFactor = new Parameter<>(1.0F);
+	public Parameter<Float> colorFactor = new Parameter<>(this, COLOR_FACTOR);
 
 	/** Defines brightness of the face (only used if useBlockBrightness = false) (Block Level) */
-	public Parameter<Integer> brightness = new Parameter<>(15728640); // 983055 - 15728640
+	public Parameter<Integer> brightness = new Parameter<>(this, BRIGHTNESS);
 
 	/** Defines alpha transparency for the face (GL11.GL_BLEND needs to be set before). usePerVertexAlpha must be false (Block Level) */
-	public Parameter<Integer> alpha = new Parameter<>(255);
+	public Parameter<Integer> alpha = new Parameter<>(this, ALPHA);
 
 	/** Defines the general direction of a face. Used for normals, and offset for AO and brightness calculation (Face Level) */
-	public Parameter<EnumFacing> direction = new Parameter<>(null);
+	public Parameter<EnumFacing> direction = new Parameter<>(this, DIRECTION);
 
 	/** Defines which direction will be used to get the block icon. If ForgeDirection.UNKNOWN, no texture will be used (Face Level) */
-	public Parameter<EnumFacing> textureSide = new Parameter<>(null);
+	public Parameter<EnumFacing> textureSide = new Parameter<>(this, TEXTURE_SIDE);
 
 	/** Defines which block to take into account for AO calculation (Face Level) */
-	public Parameter<int[][][]> aoMatrix = new Parameter<>(null);
+	public Parameter<int[][][]> aoMatrix = new Parameter<>(this, AO_MATRIX);
 
 	/** Defines whether to flip the texture on the U coordinates (Face Level) */
-	public Parameter<Boolean> flipU = new Parameter<>(false);
+	public Parameter<Boolean> flipU = new Parameter<>(this, FLIP_U);
 
 	/** Defines whether to flip the texture on the U coordinates (Face Level) */
-	public Parameter<Boolean> flipV = new Parameter<>(false);
+	public Parameter<Boolean> flipV = new Parameter<>(this, FLIP_V);
 
 	/** Defines whether a face should deducts its parameters before rendering. (Face level). */
-	public Parameter<Boolean> deductParameters = new Parameter<>(false);
+	public Parameter<Boolean> deductParameters = new Parameter<>(this, DEDUCT_PARAMETERS);
 
 	/**
 	 * Instantiates a new {@link RenderParameters}.
 	 */
 	public RenderParameters()
-	{
-		buildList();
-	}
+	{}
 
 	/**
 	 * Instantiates a new {@link RenderParameters} with the {@link Parameter} values inside <code>params</code>.
@@ -151,57 +231,73 @@ public class RenderParameters implements ITransformable.Color, ITransformable.Al
 	 */
 	public RenderParameters(RenderParameters params)
 	{
-		this();
 		merge(params);
 	}
 
 	/**
-	 * Builds the list of {@link Parameter} in this {@link RenderParameters}.
+	 * Gets the default value for the parameter at <code>index</code>.
+	 *
+	 * @param index the index
+	 * @return the default value
 	 */
-	protected void buildList()
+	static Object getDefault(int index)
 	{
-		listParams = new LinkedList<>();
-		listParams.add(renderAllFaces);
-		listParams.add(useBlockBounds);
-		listParams.add(renderBounds);
-		listParams.add(useCustomTexture);
-		listParams.add(applyTexture);
-		listParams.add(icon);
-		listParams.add(iconProvider);
-		listParams.add(useWorldSensitiveIcon);
-		listParams.add(useTexture);
-		listParams.add(interpolateUV);
-		listParams.add(rotateIcon);
-		listParams.add(calculateAOColor);
-		listParams.add(calculateBrightness);
-		listParams.add(usePerVertexColor);
-		listParams.add(usePerVertexAlpha);
-		listParams.add(usePerVertexBrightness);
-		listParams.add(useEnvironmentBrightness);
-		listParams.add(useNormals);
-		listParams.add(colorMultiplier);
-		listParams.add(colorFactor);
-		listParams.add(brightness);
-		listParams.add(alpha);
-		listParams.add(direction);
-		listParams.add(textureSide);
-		listParams.add(aoMatrix);
-		listParams.add(flipU);
-		listParams.add(flipV);
-		listParams.add(deductParameters);
+		return DEFAULTS[index];
 	}
 
 	/**
-	 * Gets the {@link Parameter} at <code>index</code>.
+	 * Gets the value explicitly set for the parameter at <code>index</code>.
 	 *
 	 * @param index the index
-	 * @return the parameter
+	 * @return the value, or null if not set
 	 */
-	private Parameter<?> getParameter(int index)
+	Object getValue(int index)
 	{
-		if (index < 0 || index >= listParams.size())
+		int bit = 1 << index;
+		if ((set & bit) == 0)
 			return null;
-		return listParams.get(index);
+		if ((BOOLEANS & bit) != 0)
+			return (booleans & bit) != 0;
+		return values[index];
+	}
+
+	/**
+	 * Gets the value for the parameter at <code>index</code>, or its default value if not set.
+	 *
+	 * @param index the index
+	 * @return the value
+	 */
+	Object get(int index)
+	{
+		Object value = getValue(index);
+		return value != null ? value : DEFAULTS[index];
+	}
+
+	/**
+	 * Sets the value for the parameter at <code>index</code>. A <code>null</code> value resets the parameter.
+	 *
+	 * @param index the index
+	 * @param value the value
+	 */
+	void setValue(int index, Object value)
+	{
+		int bit = 1 << index;
+		if (value == null)
+		{
+			set &= ~bit;
+			booleans &= ~bit;
+			values[index] = null;
+		}
+		else
+		{
+			set |= bit;
+			if ((BOOLEANS & bit) == 0)
+				values[index] = value;
+			else if ((Boolean) value)
+				booleans |= bit;
+			else
+				booleans &= ~bit;
+		}
 	}
 
 	/**
@@ -209,8 +305,9 @@ public class RenderParameters implements ITransformable.Color, ITransformable.Al
 	 */
 	public void reset()
 	{
-		for (Parameter<?> param : listParams)
-			param.reset();
+		set = 0;
+		booleans = 0;
+		Arrays.fill(values, null);
 	}
 
 	/**
@@ -220,11 +317,60 @@ public class RenderParameters implements ITransformable.Color, ITransformable.Al
 	 */
 	public void merge(RenderParameters params)
 	{
-		if (params == null)
+		if (params == null || params == this)
 			return;
 
-		for (int i = 0; i < listParams.size(); i++)
-			getParameter(i).merge(params.getParameter(i));
+		int mask = params.set;
+		booleans = booleans & ~mask | params.booleans & mask;
+		for (int m = mask & ~BOOLEANS; m != 0; m &= m - 1)
+		{
+			int i = Integer.numberOfTrailingZeros(m);
+			values[i] = params.values[i];
+		}
+		set |= mask;
+	}
+
+	/**
+	 * Merges the values of <code>params</code> for the {@link Parameter parameters} not set in this {@link RenderParameters}.
+	 *
+	 * @param params the params
+	 */
+	private void mergeMissing(RenderParameters params)
+	{
+		if (params == null || params == this)
+			return;
+
+		int mask = params.set & ~set;
+		booleans |= params.booleans & mask;
+		for (int m = mask & ~BOOLEANS; m != 0; m &= m - 1)
+		{
+			int i = Integer.numberOfTrailingZeros(m);
+			values[i] = params.values[i];
+		}
+		set |= mask;
+	}
+
+	/**
+	 * Replaces all the values of this {@link RenderParameters} by the values of <code>params</code>.
+	 *
+	 * @param params the params
+	 * @return this {@link RenderParameters}
+	 */
+	public RenderParameters copy(RenderParameters params)
+	{
+		if (params == this)
+			return this;
+
+		set = 0;
+		booleans = 0;
+		if (params != null)
+		{
+			System.arraycopy(params.values, 0, values, 0, COUNT);
+			merge(params);
+		}
+		else
+			Arrays.fill(values, null);
+		return this;
 	}
 
 	@Override
@@ -254,55 +400,35 @@ public class RenderParameters implements ITransformable.Color, ITransformable.Al
 	 */
 	public static RenderParameters merge(RenderParameters rp1, RenderParameters rp2)
 	{
-		if (rp1 == null)
-			return rp2 == null ? new RenderParameters() : rp2.clone();
+		return merge(rp1, rp2, new RenderParameters());
+	}
 
-		RenderParameters rp = rp1.clone();
-		rp.merge(rp2);
-		return rp;
+	/**
+	 * Merges <code>rp1</code> and <code>rp2</code> into <code>into</code>, replacing its previous values.<br>
+	 * <code>into</code> may be the same instance as <code>rp1</code> or <code>rp2</code>.
+	 *
+	 * @param rp1 the rp1
+	 * @param rp2 the rp2
+	 * @param into the into
+	 * @return <code>into</code>
+	 */
+	public static RenderParameters merge(RenderParameters rp1, RenderParameters rp2, RenderParameters into)
+	{
+		if (rp2 == into)
+		{
+			//into already holds the values of rp2 that take precedence
+			into.mergeMissing(rp1);
+			return into;
+		}
+
+		into.copy(rp1);
+		into.merge(rp2);
+		return into;
 	}
 
 	@Override
 	public RenderParameters clone()
 	{
-		try
-		{
-			RenderParameters rp = (RenderParameters) super.clone();
-			rp.renderAllFaces = renderAllFaces.clone();
-			rp.useBlockBounds = useBlockBounds.clone();
-			rp.renderBounds = renderBounds.clone();
-			rp.useCustomTexture = useCustomTexture.clone();
-			rp.applyTexture = applyTexture.clone();
-			rp.iconProvider = iconProvider.clone();
-			rp.icon = icon.clone();
-			rp.useWorldSensitiveIcon = useWorldSensitiveIcon.clone();
-			rp.useTexture = useTexture.clone();
-			rp.interpolateUV = interpolateUV.clone();
-			rp.rotateIcon = rotateIcon.clone();
-			rp.calculateAOColor = calculateAOColor.clone();
-			rp.calculateBrightness = calculateBrightness.clone();
-			rp.usePerVertexColor = usePerVertexColor.clone();
-			rp.usePerVertexAlpha = usePerVertexAlpha.clone();
-			rp.usePerVertexBrightness = usePerVertexBrightness.clone();
-			rp.useEnvironmentBrightness = useEnvironmentBrightness.clone();
-			rp.useNormals = useNormals.clone();
-			rp.colorMultiplier = colorMultiplier.clone();
-			rp.colorFactor = colorFactor.clone();
-			rp.brightness = brightness.clone();
-			rp.alpha = alpha.clone();
-			rp.direction = direction.clone();
-			rp.textureSide = textureSide.clone();
-			rp.aoMatrix = aoMatrix.clone();
-			rp.flipU = flipU.clone();
-			rp.flipV = flipV.clone();
-			rp.deductParameters = deductParameters.clone();
-			rp.buildList();
-			return rp;
-		}
-		catch (CloneNotSupportedException e)
-		{
-			e.printStackTrace();
-		}
-		return null;
+		return new RenderParameters(this);
 	}
 }
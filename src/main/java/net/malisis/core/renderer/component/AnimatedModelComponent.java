@@ -36,7 +36,6 @@ import com.google.common.collect.Iterables;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
-import net.malisis.core.block.IBoundingBox;
 import net.malisis.core.block.IComponent;
 import net.malisis.core.block.IComponentProvider;
 import net.malisis.core.block.MalisisBlock;
@@ -49,6 +48,7 @@ import net.malisis.core.renderer.RenderType;
 import net.malisis.core.renderer.animation.Animation;
 import net.malisis.core.renderer.element.Shape;
 import net.malisis.core.renderer.model.IAnimationLoader;
+import net.malisis.core.renderer.model.MalisisModel;
 import net.malisis.core.util.Timer;
 import net.minecraft.block.Block;
 import net.minecraft.block.state.IBlockState;
@@ -270,6 +270,8 @@ public class AnimatedModelComponent extends ModelComponent
 		if (renderer.getRenderType() == RenderType.BLOCK && animatedShapes.size() != 0)
 			onRender(renderer.getWorldAccess(), renderer.getPos(), renderer.getBlockState());
 
+		//each rendering thread transforms its own copy of the model
+		MalisisModel model = getRenderContext().model;
 		model.resetState();
 		if (renderer.getRenderType() == RenderType.BLOCK)
 			model.rotate(DirectionalComponent.getDirection(renderer.getBlockState()));
@@ -359,7 +361,7 @@ public class AnimatedModelComponent extends ModelComponent
 		@Override
 		public boolean inFrustrum(ICamera camera)
 		{
-			return camera.isBoundingBoxInFrustum(IBoundingBox.getRenderingBounds(world, pos));
+			return camera.isBoundingBoxInFrustum(getRenderingBounds());
 		}
 
 		/**
@@ -375,20 +377,16 @@ public class AnimatedModelComponent extends ModelComponent
 			if (animatedShapes.size() == 0)
 				return;
 
+			MalisisModel model = getRenderContext().model;
 			model.resetState();
 			//only animate for ANIMATED (not ITEM)
 			if (renderer.getRenderType() == RenderType.ANIMATED)
 			{
 				model.rotate(DirectionalComponent.getDirection(renderer.getBlockState()));
 
-				//need copy to prevent CME
-				Map<String, Timer> timers = getTimers();
+				//timers are kept once finished, they are only removed by stop() and link()
 				for (Entry<String, Timer> entry : timers.entrySet())
-				{
-					//animation is done and doesn't persist
-					if (model.animate(entry.getKey(), entry.getValue()))
-						this.timers.remove(renderer.getPos(), entry.getKey());
-				}
+					model.animate(entry.getKey(), entry.getValue());
 			}
 
 			//render the shapes
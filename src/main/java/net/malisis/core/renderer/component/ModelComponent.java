@@ -54,6 +54,9 @@ public class ModelComponent implements IRenderComponent
 	protected IModelIconProvider modelIconProvider;
 	/** Shape/group visibility check. */
 	protected IVisibilityProvider visibilityProvider;
+	/** {@link RenderContext} confined to each thread rendering this {@link ModelComponent}. */
+	private final ThreadLocal<RenderContext> renderContexts = ThreadLocal.withInitial(() -> new RenderContext(createModel(),
+			new RenderParameters(renderParameters)));
 
 	/**
 	 * Instantiates a new {@link ModelComponent} with a {@link IVisibilityProvider} and load its {@link MalisisModel}.
@@ -101,7 +104,27 @@ public class ModelComponent implements IRenderComponent
 	 */
 	protected void loadModel()
 	{
-		model = new MalisisModel(resourceLocation);
+		model = createModel();
+	}
+
+	/**
+	 * Creates a new {@link MalisisModel} from the {@link ResourceLocation} of this {@link ModelComponent}.
+	 *
+	 * @return the model
+	 */
+	protected MalisisModel createModel()
+	{
+		return new MalisisModel(resourceLocation);
+	}
+
+	/**
+	 * Gets the {@link RenderContext} for the current thread.
+	 *
+	 * @return the render context
+	 */
+	protected RenderContext getRenderContext()
+	{
+		return renderContexts.get();
 	}
 
 	/**
@@ -114,27 +137,55 @@ public class ModelComponent implements IRenderComponent
 		return model;
 	}
 
+	/**
+	 * Renders the model.<br>
+	 * The model is transformed in the {@link RenderContext} of the current thread, so the chunk rendering threads don't share it.
+	 */
 	@Override
 	public void render(Block block, MalisisRenderer<? extends TileEntity> renderer)
 	{
-		loadModel();
-		model.resetState();
+		RenderContext context = getRenderContext();
+		context.model = createModel();
+		context.model.resetState();
 		if (renderer.getRenderType() != RenderType.ITEM)
-			model.rotate(DirectionalComponent.getDirection(renderer.getBlockState()));
+			context.model.rotate(DirectionalComponent.getDirection(renderer.getBlockState()));
 
-		for (String name : model.getShapeNames())
+		for (String name : context.model.getShapeNames())
 		{
 			if (visibilityProvider == null || visibilityProvider.isVisible(renderer, name))
 			{
 				if (modelIconProvider != null)
-					renderParameters.icon.set(modelIconProvider.getIcon(renderer, name));
+					context.rp.icon.set(modelIconProvider.getIcon(renderer, name));
 
-				model.render(renderer, name, renderParameters);
+				context.model.render(renderer, name, context.rp);
 			}
 		}
 
 	}
 
+	/**
+	 * RenderContext holds the {@link MalisisModel} and {@link RenderParameters} transformed by a single rendering thread.
+	 */
+	protected static class RenderContext
+	{
+		/** {@link MalisisModel} transformed by the thread. */
+		protected MalisisModel model;
+		/** {@link RenderParameters} used by the thread. */
+		protected RenderParameters rp;
+
+		/**
+		 * Instantiates a new {@link RenderContext}.
+		 *
+		 * @param model the model
+		 * @param rp the render parameters
+		 */
+		protected RenderContext(MalisisModel model, RenderParameters rp)
+		{
+			this.model = model;
+			this.rp = rp;
+		}
+	}
+
 	/**
 	 * IVisibilityProvider determines whether a specific shape/group should be rendered.
 	 */
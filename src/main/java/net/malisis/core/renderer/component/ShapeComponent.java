@@ -24,13 +24,21 @@
 
 package net.malisis.core.renderer.component;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import net.malisis.core.block.IComponent;
 import net.malisis.core.block.component.DirectionalComponent;
+import net.malisis.core.renderer.DefaultRenderer;
 import net.malisis.core.renderer.IRenderComponent;
 import net.malisis.core.renderer.MalisisRenderer;
 import net.malisis.core.renderer.RenderParameters;
 import net.malisis.core.renderer.RenderType;
+import net.malisis.core.renderer.element.BakedShape;
 import net.malisis.core.renderer.element.Shape;
+import net.malisis.core.renderer.icon.provider.IIconProvider;
 import net.minecraft.block.Block;
+import net.minecraft.block.state.IBlockState;
 import net.minecraft.tileentity.TileEntity;
 
 /**
@@ -40,17 +48,33 @@ import net.minecraft.tileentity.TileEntity;
 public class ShapeComponent implements IRenderComponent
 {
 	protected Shape shape;
+	/** Copies of the {@link Shape} per rendering thread, as blocks can be drawn by several chunk rendering threads at once. */
+	private final ThreadLocal<Shape> threadShapes = ThreadLocal.withInitial(() -> new Shape(shape));
 	RenderParameters rp = new RenderParameters();
+	/** Baked shapes per {@link IBlockState}. */
+	private final Map<IBlockState, BakedShape> bakedShapes = new ConcurrentHashMap<>();
 
 	public ShapeComponent(Shape shape)
 	{
 		this.shape = shape;
+		rp.interpolateUV.set(false);
 	}
 
 	@Override
 	public void render(Block block, MalisisRenderer<? extends TileEntity> renderer)
 	{
-		rp.interpolateUV.set(false);
+		boolean bake = canBake(block, renderer);
+		if (bake)
+		{
+			BakedShape baked = bakedShapes.get(renderer.getBlockState());
+			if (baked != null && baked.isValid(renderer.getVertexFormat()))
+			{
+				renderer.drawBakedShape(baked);
+				return;
+			}
+		}
+
+		Shape shape = threadShapes.get();
 		shape.resetState();
 		if (renderer.getRenderType() == RenderType.BLOCK)
 		{
@@ -58,6 +82,32 @@ public class ShapeComponent implements IRenderComponent
 			shape.applyMatrix();
 			shape.deductParameters();
 		}
-		renderer.drawShape(shape, rp);
+		if (bake)
+		{
+			BakedShape baked = renderer.bakeShape(shape, rp);
+			bakedShapes.put(renderer.getBlockState(), baked);
+			renderer.drawBakedShape(baked);
+		}
+		else
+			renderer.drawShape(shape, rp);
+	}
+
+	/**
+	 * Checks whether the {@link Shape} can be baked for the current {@link IBlockState}.<br>
+	 * Only done for blocks drawn by {@link DefaultRenderer.Block}, with icons only depending on the state.
+	 *
+	 * @param block the block
+	 * @param renderer the renderer
+	 * @return true, if successful
+	 */
+	protected boolean canBake(Block block, MalisisRenderer<? extends TileEntity> renderer)
+	{
+		if (renderer.getRenderType() != RenderType.BLOCK || renderer.getClass() != DefaultRenderer.Block.class)
+			return false;
+
+		IIconProvider provider = rp.iconProvider.get();
+		if (provider == null)
+			provider = IComponent.getComponent(IIconProvider.class, block);
+		return rp.icon.get() != null || BakedShape.canBake(provider);
 	}
 }
@@ -0,0 +1,220 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014 Ordinastie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.malisis.core.renderer.element;
+
+import net.malisis.core.registry.MalisisRegistry;
+import net.malisis.core.renderer.RenderParameters;
+import net.malisis.core.renderer.icon.provider.IBlockIconProvider;
+import net.malisis.core.renderer.icon.provider.IIconProvider;
+import net.malisis.core.util.callback.CallbackResult;
+import net.malisis.core.util.callback.ICallback.CallbackOption;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.client.renderer.texture.TextureMap;
+import net.minecraft.client.renderer.vertex.VertexFormat;
+import net.minecraft.util.EnumFacing;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.IBlockAccess;
+
+/**
+ * A BakedShape is the immutable result of transforming and texturing a {@link Shape} for a given {@link IBlockState}.<br>
+ * Each {@link BakedFace} holds the packed vertex data for a {@link VertexFormat}, so that drawing it only requires to patch the position,
+ * color and brightness of each vertex before copying the data to the buffer.<br>
+ * A BakedShape is bound to the texture atlas it was baked with and becomes invalid once the textures are stitched again.
+ *
+ * @author Ordinastie
+ */
+public class BakedShape
+{
+	/** Current texture atlas generation. */
+	private static volatile int currentGeneration = 0;
+
+	static
+	{
+		MalisisRegistry.onTextureStitched(BakedShape::onTextureStitched, CallbackOption.of());
+	}
+
+	/** Whether the world dependent icon method is overridden, per {@link IBlockIconProvider} class. */
+	private static final ClassValue<Boolean> worldDependentIcons = new ClassValue<Boolean>()
+	{
+		@Override
+		protected Boolean computeValue(Class<?> type)
+		{
+			try
+			{
+				return type.getMethod("getIcon", IBlockAccess.class, BlockPos.class, IBlockState.class, EnumFacing.class)
+							.getDeclaringClass() != IBlockIconProvider.class;
+			}
+			catch (NoSuchMethodException e)
+			{
+				return true;
+			}
+		}
+	};
+
+	/** Texture atlas generation this {@link BakedShape} was baked with. */
+	private final int generation;
+	/** {@link VertexLayout} of the vertex data. */
+	private final VertexLayout layout;
+	/** Baked faces. */
+	private final BakedFace[] faces;
+
+	/**
+	 * Instantiates a new {@link BakedShape}.
+	 *
+	 * @param layout the layout
+	 * @param faces the faces
+	 */
+	public BakedShape(VertexLayout layout, BakedFace... faces)
+	{
+		this.generation = currentGeneration;
+		this.layout = layout;
+		this.faces = faces;
+	}
+
+	/**
+	 * Gets the {@link VertexLayout} of the vertex data of this {@link BakedShape}.
+	 *
+	 * @return the layout
+	 */
+	public VertexLayout getLayout()
+	{
+		return layout;
+	}
+
+	/**
+	 * Gets the {@link BakedFace faces} of this {@link BakedShape}.<br>
+	 * The returned array must not be modified.
+	 *
+	 * @return the faces
+	 */
+	public BakedFace[] getFaces()
+	{
+		return faces;
+	}
+
+	/**
+	 * Checks whether this {@link BakedShape} can still be drawn with the {@link VertexFormat}.<br>
+	 * A shape baked before the last texture stitch is not valid anymore.
+	 *
+	 * @param vertexFormat the vertex format
+	 * @return true, if valid
+	 */
+	public boolean isValid(VertexFormat vertexFormat)
+	{
+		return generation == currentGeneration && layout.getVertexFormat() == vertexFormat;
+	}
+
+	/**
+	 * Checks whether the icons given by the {@link IIconProvider} only depend on the {@link IBlockState}, in which case the shapes
+	 * textured with it can be baked.
+	 *
+	 * @param provider the provider
+	 * @return true, if successful
+	 */
+	public static boolean canBake(IIconProvider provider)
+	{
+		return !(provider instanceof IBlockIconProvider) || !worldDependentIcons.get(provider.getClass());
+	}
+
+	/**
+	 * Invalidates all the {@link BakedShape} when the textures are stitched.
+	 *
+	 * @param map the map
+	 * @return the callback result
+	 */
+	private static CallbackResult<Void> onTextureStitched(TextureMap map)
+	{
+		currentGeneration++;
+		return CallbackResult.noResult();
+	}
+
+	/**
+	 * A single baked {@link Face}.<br>
+	 * The {@link Face} and {@link RenderParameters} are kept to compute the color and brightness of the vertexes when drawn, and must not
+	 * be modified.
+	 */
+	public static class BakedFace
+	{
+		private final Face face;
+		private final RenderParameters params;
+		private final EnumFacing cullFace;
+		private final int[] data;
+
+		public BakedFace(Face face, RenderParameters params, VertexLayout layout)
+		{
+			this.face = face;
+			this.params = params;
+
+			RenderParameters p = face.getParameters();
+			this.cullFace = params.renderAllFaces.get() || p.renderAllFaces.get() ? null : p.direction.get();
+
+			Vertex[] vertexes = face.getVertexes();
+			this.data = new int[vertexes.length * layout.getSize()];
+			for (int i = 0; i < vertexes.length; i++)
+				vertexes[i].writeVertexData(layout, null, data, i * layout.getSize());
+		}
+
+		/**
+		 * Gets the transformed and textured {@link Face}.
+		 *
+		 * @return the face
+		 */
+		public Face getFace()
+		{
+			return face;
+		}
+
+		/**
+		 * Gets the merged {@link RenderParameters} of the {@link Face}.
+		 *
+		 * @return the parameters
+		 */
+		public RenderParameters getParameters()
+		{
+			return params;
+		}
+
+		/**
+		 * Gets the side this {@link BakedFace} is culled against.
+		 *
+		 * @return the side, or null if the face is always rendered
+		 */
+		public EnumFacing getCullFace()
+		{
+			return cullFace;
+		}
+
+		/**
+		 * Gets the packed vertex data of this {@link BakedFace}, without offset.<br>
+		 * The returned array must not be modified.
+		 *
+		 * @return the data
+		 */
+		public int[] getData()
+		{
+			return data;
+		}
+	}
+}
@@ -25,7 +25,6 @@
 package net.malisis.core.renderer.element;
 
 import org.lwjgl.util.vector.Matrix4f;
-import org.lwjgl.util.vector.Vector4f;
 
 import net.malisis.core.util.Point;
 import net.minecraft.client.renderer.vertex.VertexFormat;
@@ -179,6 +178,18 @@ public class Vertex
 	}
 
 	public int getRGBA()
+	{
+		return toRGBA(color, alpha);
+	}
+
+	/**
+	 * Packs the color and alpha into the RGBA int used in the vertex data.
+	 *
+	 * @param color the color
+	 * @param alpha the alpha
+	 * @return the rgba
+	 */
+	public static int toRGBA(int color, int alpha)
 	{
 		int r = (color >> 16) & 255;
 		int g = (color >> 8) & 255;
@@ -439,11 +450,12 @@ public class Vertex
 
 	public void applyMatrix(Matrix4f transformMatrix)
 	{
-		Vector4f vec = new Vector4f((float) x, (float) y, (float) z, 1F);
-		Matrix4f.transform(transformMatrix, vec, vec);
-		x = vec.x;
-		y = vec.y;
-		z = vec.z;
+		//same as Matrix4f.transform() with w = 1, without allocating a Vector4f
+		Matrix4f m = transformMatrix;
+		float fx = (float) x, fy = (float) y, fz = (float) z;
+		x = m.m00 * fx + m.m10 * fy + m.m20 * fz + m.m30;
+		y = m.m01 * fx + m.m11 * fy + m.m21 * fz + m.m31;
+		z = m.m02 * fx + m.m12 * fy + m.m22 * fz + m.m32;
 	}
 
 	/**
@@ -454,6 +466,23 @@ public class Vertex
 	 * @return the vertex data
 	 */
 	public int[] getVertexData(VertexFormat vertexFormat, Vec3d offset)
+	{
+		VertexLayout layout = new VertexLayout(vertexFormat);
+		int[] data = new int[layout.getSize()];
+		writeVertexData(layout, offset, data, 0);
+		return data;
+	}
+
+	/**
+	 * Writes the vertex data for this {@link Vertex} into the array, starting at the index.<br>
+	 * Nothing is allocated, so this should be preferred over {@link #getVertexData(VertexFormat, Vec3d)} when drawing.
+	 *
+	 * @param layout the layout
+	 * @param offset the offset
+	 * @param data the data
+	 * @param index the index
+	 */
+	public void writeVertexData(VertexLayout layout, Vec3d offset, int[] data, int index)
 	{
 		float x = (float) getX();
 		float y = (float) getY();
@@ -466,28 +495,20 @@ public class Vertex
 			z += offset.z;
 		}
 
-		int[] data = new int[vertexFormat.getIntegerSize()];
-		int index = 0;
-		//private
-		//if(vertexFormat.hasPosition())
+		data[index] = Float.floatToRawIntBits(x);
+		data[index + 1] = Float.floatToRawIntBits(y);
+		data[index + 2] = Float.floatToRawIntBits(z);
+		if (layout.getColorIndex() != -1)
+			data[index + layout.getColorIndex()] = getRGBA();
+		if (layout.getUvIndex() != -1) //normal UVs
 		{
-			data[index++] = Float.floatToRawIntBits(x);
-			data[index++] = Float.floatToRawIntBits(y);
-			data[index++] = Float.floatToRawIntBits(z);
+			data[index + layout.getUvIndex()] = Float.floatToRawIntBits((float) getU());
+			data[index + layout.getUvIndex() + 1] = Float.floatToRawIntBits((float) getV());
 		}
-		if (vertexFormat.hasColor())
-			data[index++] = getRGBA();
-		if (vertexFormat.hasUvOffset(0)) //normal UVs
-		{
-			data[index++] = Float.floatToRawIntBits((float) getU());
-			data[index++] = Float.floatToRawIntBits((float) getV());
-		}
-		if (vertexFormat.hasUvOffset(1)) //brightness UVs
-			data[index++] = getBrightness();
-		if (vertexFormat.hasNormal())
-			data[index++] = getNormal();
-
-		return data;
+		if (layout.getBrightnessIndex() != -1) //brightness UVs
+			data[index + layout.getBrightnessIndex()] = getBrightness();
+		if (layout.getNormalIndex() != -1)
+			data[index + layout.getNormalIndex()] = getNormal();
 	}
 
 	private void setState(Vertex vertex)
@@ -0,0 +1,118 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014 Ordinastie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.malisis.core.renderer.element;
+
+import net.minecraft.client.renderer.vertex.VertexFormat;
+
+/**
+ * The VertexLayout holds the precomputed offsets of the elements written by {@link Vertex} inside the data of a single vertex for a
+ * {@link VertexFormat}.<br>
+ * Offsets are in ints, and are -1 when the element is not part of the format.
+ *
+ * @author Ordinastie
+ */
+public class VertexLayout
+{
+	private final VertexFormat vertexFormat;
+	private final int size;
+	private final int colorIndex;
+	private final int uvIndex;
+	private final int brightnessIndex;
+	private final int normalIndex;
+
+	public VertexLayout(VertexFormat vertexFormat)
+	{
+		this.vertexFormat = vertexFormat;
+		this.size = vertexFormat.getIntegerSize();
+
+		int index = 3;
+		colorIndex = vertexFormat.hasColor() ? index++ : -1;
+		uvIndex = vertexFormat.hasUvOffset(0) ? index : -1;
+		if (uvIndex != -1)
+			index += 2;
+		brightnessIndex = vertexFormat.hasUvOffset(1) ? index++ : -1;
+		normalIndex = vertexFormat.hasNormal() ? index++ : -1;
+	}
+
+	/**
+	 * Gets the {@link VertexFormat} of this {@link VertexLayout}.
+	 *
+	 * @return the vertex format
+	 */
+	public VertexFormat getVertexFormat()
+	{
+		return vertexFormat;
+	}
+
+	/**
+	 * Gets the number of ints for a single vertex.
+	 *
+	 * @return the size
+	 */
+	public int getSize()
+	{
+		return size;
+	}
+
+	/**
+	 * Gets the offset of the color.
+	 *
+	 * @return the color index
+	 */
+	public int getColorIndex()
+	{
+		return colorIndex;
+	}
+
+	/**
+	 * Gets the offset of the texture UVs.
+	 *
+	 * @return the uv index
+	 */
+	public int getUvIndex()
+	{
+		return uvIndex;
+	}
+
+	/**
+	 * Gets the offset of the brightness.
+	 *
+	 * @return the brightness index
+	 */
+	public int getBrightnessIndex()
+	{
+		return brightnessIndex;
+	}
+
+	/**
+	 * Gets the offset of the normal.
+	 *
+	 * @return the normal index
+	 */
+	public int getNormalIndex()
+	{
+		return normalIndex;
+	}
+}
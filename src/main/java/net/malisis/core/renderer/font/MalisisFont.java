@@ -36,18 +36,15 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Random;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import javax.imageio.ImageIO;
 
 import org.apache.commons.lang3.StringUtils;
-import org.apache.commons.lang3.tuple.Pair;
 import org.lwjgl.opengl.GL11;
 
-import com.google.common.collect.Lists;
 import com.google.common.io.Files;
 
 import net.malisis.core.MalisisCore;
@@ -61,7 +58,7 @@ import net.minecraft.client.renderer.BufferBuilder;
 import net.minecraft.client.renderer.Tessellator;
 import net.minecraft.client.renderer.texture.DynamicTexture;
 import net.minecraft.client.renderer.vertex.DefaultVertexFormats;
-import net.minecraft.client.resources.I18n;
+import net.minecraft.client.resources.Language;
 import net.minecraft.util.ResourceLocation;
 import net.minecraft.util.text.TextFormatting;
 
@@ -72,7 +69,6 @@ import net.minecraft.util.text.TextFormatting;
 public class MalisisFont
 {
 	public static String CHARLIST = "\u00c0\u00c1\u00c2\u00c8\u00ca\u00cb\u00cd\u00d3\u00d4\u00d5\u00da\u00df\u00e3\u00f5\u011f\u0130\u0131\u0152\u0153\u015e\u015f\u0174\u0175\u017e\u0207\u0000\u0000\u0000\u0000\u0000\u0000\u0000 !\"#$%&\'()*+,-./0123456789:;<=>?@ABCDEFGHIJKLMNOPQRSTUVWXYZ[\\]^_`abcdefghijklmnopqrstuvwxyz{|}~\u0000\u00c7\u00fc\u00e9\u00e2\u00e4\u00e0\u00e5\u00e7\u00ea\u00eb\u00e8\u00ef\u00ee\u00ec\u00c4\u00c5\u00c9\u00e6\u00c6\u00f4\u00f6\u00f2\u00fb\u00f9\u00ff\u00d6\u00dc\u00f8\u00a3\u00d8\u00d7\u0192\u00e1\u00ed\u00f3\u00fa\u00f1\u00d1\u00aa\u00ba\u00bf\u00ae\u00ac\u00bd\u00bc\u00a1\u00ab\u00bb\u2591\u2592\u2593\u2502\u2524\u2561\u2562\u2556\u2555\u2563\u2551\u2557\u255d\u255c\u255b\u2510\u2514\u2534\u252c\u251c\u2500\u253c\u255e\u255f\u255a\u2554\u2569\u2566\u2560\u2550\u256c\u2567\u2568\u2564\u2565\u2559\u2558\u2552\u2553\u256b\u256a\u2518\u250c\u2588\u2584\u258c\u2590\u2580\u03b1\u03b2\u0393\u03c0\u03a3\u03c3\u03bc\u03c4\u03a6\u0398\u03a9\u03b4\u221e\u2205\u2208\u2229\u2261\u00b1\u2265\u2264\u2320\u2321\u00f7\u2248\u00b0\u2219\u00b7\u221a\u207f\u00b2\u25a0\u0000";
-	private static Pattern pattern = Pattern.compile("\\{(.*?)}");
 	public static MalisisFont minecraftFont = new MinecraftFont();
 
 	/** AWT font used **/
@@ -90,6 +86,16 @@ public class MalisisFont
 	/** Whether the currently drawn text is the shadow part **/
 	protected boolean drawingShadow = false;
 	protected float zIndex = 0f;
+	/** Cache of the {@link TextLayout} of the single line texts rendered or measured with this font. */
+	protected TextLayoutCache layoutCache = new TextLayoutCache(1 << 20);
+	/** Language the cached {@link TextLayout} were translated with. */
+	private Language layoutLanguage;
+	/** Buffer the quads are drawn into while building the vertex data of a {@link TextLayout}. */
+	private BufferBuilder layoutBuffer;
+	/** Whether the quads are currently drawn into {@link #layoutBuffer}. */
+	private boolean buildingLayout;
+	/** Whether the quads drawn into {@link #layoutBuffer} can be kept. */
+	private boolean cacheableLayout;
 
 	private boolean loaded = false;
 
@@ -247,16 +253,29 @@ public class MalisisFont
 		if (lines.size() == 0)
 			return;
 
+		//a single line has no style carried over from previous lines, and is already processed
+		if (lines.size() == 1 && startLine <= 0 && endLine >= 1)
+		{
+			if (!StringUtils.isEmpty(lines.get(0)))
+				renderLayout(renderer, getLayout(lines.get(0), options, false), x, y, z, options);
+			return;
+		}
+
 		boolean isDrawing = renderer.isDrawing();
 		prepare(renderer, x, y, z, options);
+		renderLines(lines, startLine, endLine, lineSpacing, options);
+		clean(renderer, isDrawing);
+	}
 
+	protected void renderLines(List<String> lines, int startLine, int endLine, int lineSpacing, FontOptions options)
+	{
 		try
 		{
 			StringWalker walker = new StringWalker(lines, this, options);
 			walker.applyStyles(true);
 
-			x = 0;
-			y = 0;
+			float x = 0;
+			float y = 0;
 
 			while (walker.walk())
 			{
@@ -280,8 +299,6 @@ public class MalisisFont
 		{
 			e.printStackTrace();
 		}
-
-		clean(renderer, isDrawing);
 	}
 
 	public void render(MalisisRenderer<?> renderer, String text, float x, float y, float z, FontOptions options)
@@ -293,13 +310,111 @@ public class MalisisFont
 			minecraftFont.render(renderer, text, x, y, z, options);
 			return;
 		}
-		text = processString(text, options);
-		render(renderer, Lists.newArrayList(text), 0, 1, x, y, z, 0, options);
+
+		renderLayout(renderer, getLayout(text, options), x, y, z, options);
+	}
+
+	/**
+	 * Renders the {@link TextLayout}, using its cached vertex data if possible.
+	 *
+	 * @param renderer the renderer
+	 * @param layout the layout
+	 * @param x the x
+	 * @param y the y
+	 * @param z the z
+	 * @param options the options
+	 */
+	protected void renderLayout(MalisisRenderer<?> renderer, TextLayout layout, float x, float y, float z, FontOptions options)
+	{
+		boolean isDrawing = renderer.isDrawing();
+		prepare(renderer, x, y, z, options);
+
+		int[] vertexData = layout.getVertexData(z);
+		if (vertexData == null && layout.canCacheVertexData())
+			vertexData = buildVertexData(layout, z, options);
+
+		if (vertexData != null)
+			Tessellator.getInstance().getBuffer().addVertexData(vertexData);
+		else
+			renderLines(Collections.singletonList(layout.getText()), 0, 1, 0, options);
+
+		clean(renderer, isDrawing);
+	}
+
+	/**
+	 * Draws the text of the {@link TextLayout} into a separate buffer and stores the resulting vertex data in the layout.<br>
+	 * Nothing is stored if a character can't be kept, for example because it's obfuscated.
+	 *
+	 * @param layout the layout
+	 * @param z the z
+	 * @param options the options
+	 * @return the vertex data, or null
+	 */
+	protected int[] buildVertexData(TextLayout layout, float z, FontOptions options)
+	{
+		if (layoutBuffer == null)
+			layoutBuffer = new BufferBuilder(2048);
+
+		layoutBuffer.begin(GL11.GL_QUADS, DefaultVertexFormats.POSITION_TEX_COLOR);
+		buildingLayout = true;
+		cacheableLayout = true;
+		try
+		{
+			renderLines(Collections.singletonList(layout.getText()), 0, 1, 0, options);
+		}
+		finally
+		{
+			buildingLayout = false;
+			layoutBuffer.finishDrawing();
+		}
+
+		int[] vertexData = null;
+		if (cacheableLayout)
+		{
+			vertexData = new int[layoutBuffer.getVertexCount() * DefaultVertexFormats.POSITION_TEX_COLOR.getIntegerSize()];
+			layoutBuffer.getByteBuffer().asIntBuffer().get(vertexData);
+		}
+		layoutBuffer.reset();
+		cacheableLayout = false;
+
+		int oldWeight = layout.getWeight();
+		layout.setVertexData(vertexData, z);
+		layoutCache.update(layout, oldWeight);
+		return vertexData;
+	}
+
+	/**
+	 * Gets the {@link BufferBuilder} the characters are drawn into.
+	 *
+	 * @return the buffer
+	 */
+	protected BufferBuilder getBuffer()
+	{
+		return buildingLayout ? layoutBuffer : Tessellator.getInstance().getBuffer();
+	}
+
+	/**
+	 * Checks whether the quads drawn for the {@link CharData} can be kept in a {@link TextLayout}.
+	 *
+	 * @param cd the cd
+	 * @return true, if successful
+	 */
+	protected boolean canCache(CharData cd)
+	{
+		return true;
 	}
 
 	protected void renderCharacter(char c, float x, float y, FontOptions options)
 	{
 		CharData cd = getCharData(c);
+		if (buildingLayout)
+		{
+			//the quads won't be kept, no need to draw the remaining characters
+			if (cacheableLayout && (options.isObfuscated() || !canCache(cd)))
+				cacheableLayout = false;
+			if (!cacheableLayout)
+				return;
+		}
 		if (options.isObfuscated())
 			cd = getRandomChar(cd);
 		float fs = options.getFontScale();
@@ -326,7 +441,7 @@ public class MalisisFont
 		if (Character.isWhitespace(cd.getChar()))
 			return;
 
-		BufferBuilder buffer = Tessellator.getInstance().getBuffer();
+		BufferBuilder buffer = getBuffer();
 		float factor = options.getFontScale() / fontGeneratorOptions.fontSize * 9;
 		float w = cd.getFullWidth(fontGeneratorOptions) * factor;
 		float h = cd.getFullHeight(fontGeneratorOptions) * factor;
@@ -355,7 +470,7 @@ public class MalisisFont
 
 	protected void drawLine(CharData cd, float offsetX, float offsetY, FontOptions options, int color)
 	{
-		BufferBuilder buffer = Tessellator.getInstance().getBuffer();
+		BufferBuilder buffer = getBuffer();
 		float factor = options.getFontScale() / fontGeneratorOptions.fontSize * 9;
 		float w = cd.getFullWidth(fontGeneratorOptions) * factor + options.getFontScale();
 		if (options.isBold())
@@ -413,23 +528,7 @@ public class MalisisFont
 		//str = str.replaceAll("\r?\n", "");
 		if (!options.shouldTranslate())
 			return str;
-		Pair<String, String> p = FontOptions.getStartFormat(str);
-		return p.getLeft() + translate(p.getRight());
-	}
-
-	private String translate(String str)
-	{
-		if (str.indexOf('{') == -1 || str.indexOf('{') >= str.indexOf('}'))
-			return I18n.format(str);
-
-		StringBuffer output = new StringBuffer();
-		Matcher matcher = pattern.matcher(str);
-
-		while (matcher.find())
-			matcher.appendReplacement(output, I18n.format(matcher.group(1)));
-
-		matcher.appendTail(output);
-		return output.toString();
+		return TranslationCache.process(str);
 	}
 
 	/**
@@ -456,11 +555,15 @@ public class MalisisFont
 	 */
 	public String clipString(String str, int width, FontOptions options, boolean appendPeriods)
 	{
-		str = processString(str, options);
+		if (StringUtils.isEmpty(str))
+			return str;
+
+		TextLayout layout = getLayout(str, options);
+		str = layout.getText();
 		if (appendPeriods)
 			width -= 4;
 
-		int pos = (int) getCharPosition(str, options, width, 0);
+		int pos = layout.getCharIndex(width, 0);
 		return str.substring(0, pos) + (pos < str.length() && appendPeriods ? "..." : "");
 	}
 
@@ -487,9 +590,11 @@ public class MalisisFont
 		if (StringUtils.isEmpty(str))
 			return 0;
 
-		str = processString(str, options);
-		return (float) font.getStringBounds(str, frc).getWidth() / fontGeneratorOptions.fontSize
-				* (options != null ? options.getFontScale() : 1) * 9;
+		TextLayout layout = getLayout(str, options);
+		if (Float.isNaN(layout.getStringWidth()))
+			layout.setStringWidth((float) font.getStringBounds(layout.getText(), frc).getWidth() / fontGeneratorOptions.fontSize
+					* (options != null ? options.getFontScale() : 1) * 9);
+		return layout.getStringWidth();
 	}
 
 	public float getStringWidth(String str, FontOptions options)
@@ -588,13 +693,48 @@ public class MalisisFont
 		if (StringUtils.isEmpty(str))
 			return 0;
 
-		str = processString(str, options);
-		//float fx = position / (fro != null ? fro.fontScale : 1); //factor the position instead of the char widths
+		return getLayout(str, options).getCharIndex(position, charOffset);
+	}
 
-		StringWalker walker = new StringWalker(str, this, options);
-		walker.startIndex(charOffset);
-		walker.skipChars(true);
-		return walker.walkToCoord(position);
+	/**
+	 * Gets the cached {@link TextLayout} for the text, processing the text if needed.
+	 *
+	 * @param str the str
+	 * @param options the options
+	 * @return the layout
+	 */
+	public TextLayout getLayout(String str, FontOptions options)
+	{
+		if (options == null)
+			options = FontOptions.EMPTY;
+		return getLayout(str, options, options.shouldTranslate());
+	}
+
+	/**
+	 * Gets the cached {@link TextLayout} for the text, processing the text only if <i>translate</i> is true.
+	 *
+	 * @param str the str
+	 * @param options the options
+	 * @param translate whether the text should be translated
+	 * @return the layout
+	 */
+	public TextLayout getLayout(String str, FontOptions options, boolean translate)
+	{
+		checkLayoutCache();
+		return layoutCache.get(this, str, options != null ? options : FontOptions.EMPTY, translate);
+	}
+
+	/**
+	 * Clears the {@link TextLayout} cache if they were built with a different language.
+	 */
+	protected void checkLayoutCache()
+	{
+		Language language = Minecraft.getMinecraft().getLanguageManager().getCurrentLanguage();
+		if (language != layoutLanguage)
+		{
+			layoutCache.clear();
+			layoutLanguage = language;
+		}
 	}
 	//#end String processing
 
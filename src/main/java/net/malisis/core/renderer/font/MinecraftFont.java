@@ -57,6 +57,8 @@ public class MinecraftFont extends MalisisFont
 	/** Whether the character should drawn with unicode font even if unicode is disabled in MC options. */
 	protected boolean forceUnicode = false;
 	private MalisisRenderer<?> renderer;
+	/** Whether the cached {@link TextLayout} were built with the unicode font. */
+	private boolean layoutUnicode;
 
 	public MinecraftFont()
 	{
@@ -180,10 +182,26 @@ public class MinecraftFont extends MalisisFont
 		if (StringUtils.isEmpty(str))
 			return 0;
 
-		str = processString(str, options);
-		StringWalker walker = new StringWalker(str, this, options);
-		walker.startIndex(start);
-		return walker.walkToCharacter(end);
+		return getLayout(str, options).getWidth(start, end);
+	}
+
+	@Override
+	protected void checkLayoutCache()
+	{
+		super.checkLayoutCache();
+		boolean unicode = fontRenderer.getUnicodeFlag() || forceUnicode;
+		if (unicode != layoutUnicode)
+		{
+			layoutCache.clear();
+			layoutUnicode = unicode;
+		}
+	}
+
+	@Override
+	protected boolean canCache(CharData cd)
+	{
+		//unicode characters need their own texture bound
+		return !(cd instanceof UnicodeCharData);
 	}
 
 	@Override
@@ -0,0 +1,185 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014 Ordinastie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.malisis.core.renderer.font;
+
+import net.minecraft.util.math.MathHelper;
+
+/**
+ * A TextLayout holds the result of processing a single line of text for a {@link MalisisFont} and a set of {@link FontOptions}.<br>
+ * The advance of each character is stored, so that widths and character positions are simple array lookups, and the quads drawn for the
+ * text can be kept to be copied in bulk to the buffer on the next draws.
+ *
+ * @author Ordinastie
+ */
+public class TextLayout
+{
+	/** Processed (translated) text. */
+	private final String text;
+	/** Advance of each character of the text, formatting codes having none. */
+	private final float[] advances;
+	/** Width of the text given by the font itself, if any. */
+	private float stringWidth = Float.NaN;
+	/** Vertex data of the quads drawn for the text. */
+	private int[] vertexData;
+	/** Z index the quads were drawn at. */
+	private float vertexZ;
+	/** Whether the quads can be kept for this text. */
+	private boolean cacheVertexData = true;
+
+	/**
+	 * Instantiates a new {@link TextLayout}.
+	 *
+	 * @param font the font
+	 * @param text the processed text
+	 * @param options the options
+	 */
+	public TextLayout(MalisisFont font, String text, FontOptions options)
+	{
+		this.text = text;
+		this.advances = new float[text.length()];
+
+		//formatting codes are walked one char at a time and get no width
+		StringWalker walker = new StringWalker(text, font, options);
+		walker.skipChars(false);
+		while (walker.walk())
+			advances[walker.getIndex() - 1] = walker.getWidth();
+	}
+
+	/**
+	 * Gets the processed text of this {@link TextLayout}.
+	 *
+	 * @return the text
+	 */
+	public String getText()
+	{
+		return text;
+	}
+
+	/**
+	 * Gets the width of the characters between <i>start</i> and <i>end</i>.<br>
+	 * An <i>end</i> of 0 means the end of the text.
+	 *
+	 * @param start the start
+	 * @param end the end
+	 * @return the width
+	 */
+	public float getWidth(int start, int end)
+	{
+		start = MathHelper.clamp(start, 0, advances.length);
+		end = end == 0 ? advances.length : Math.min(end, advances.length);
+		float width = 0;
+		for (int i = start; i < end; i++)
+			width += advances[i];
+		return width;
+	}
+
+	/**
+	 * Gets the index of the character at the <i>x</i> coordinate, walking from <i>offset</i>.
+	 *
+	 * @param x the x
+	 * @param offset the offset
+	 * @return the index
+	 */
+	public int getCharIndex(float x, int offset)
+	{
+		offset = MathHelper.clamp(offset, 0, advances.length);
+		if (x < 0)
+			return offset;
+
+		float width = 0;
+		for (int i = offset; i < advances.length; i++)
+		{
+			width += advances[i];
+			if (width > x)
+				return i;
+		}
+		return advances.length;
+	}
+
+	/**
+	 * Gets the width of the text computed by the font itself, or {@link Float#NaN} if not set yet.
+	 *
+	 * @return the string width
+	 */
+	public float getStringWidth()
+	{
+		return stringWidth;
+	}
+
+	/**
+	 * Sets the width of the text computed by the font itself.
+	 *
+	 * @param stringWidth the string width
+	 */
+	public void setStringWidth(float stringWidth)
+	{
+		this.stringWidth = stringWidth;
+	}
+
+	/**
+	 * Gets the vertex data of the quads for the text drawn at <i>z</i>, if they were kept.
+	 *
+	 * @param z the z
+	 * @return the vertex data, or null
+	 */
+	public int[] getVertexData(float z)
+	{
+		return vertexData != null && vertexZ == z ? vertexData : null;
+	}
+
+	/**
+	 * Sets the vertex data of the quads for the text drawn at <i>z</i>.<br>
+	 * A null <i>vertexData</i> means the quads can't be kept for this text.
+	 *
+	 * @param vertexData the vertex data
+	 * @param z the z
+	 */
+	public void setVertexData(int[] vertexData, float z)
+	{
+		this.vertexData = vertexData;
+		this.vertexZ = z;
+		this.cacheVertexData = vertexData != null;
+	}
+
+	/**
+	 * Checks whether the quads drawn for the text can be kept.
+	 *
+	 * @return true, if successful
+	 */
+	public boolean canCacheVertexData()
+	{
+		return cacheVertexData;
+	}
+
+	/**
+	 * Gets the approximate memory used by this {@link TextLayout}, in bytes.
+	 *
+	 * @return the weight
+	 */
+	public int getWeight()
+	{
+		return 64 + text.length() * 2 + advances.length * 4 + (vertexData != null ? vertexData.length * 4 : 0);
+	}
+}
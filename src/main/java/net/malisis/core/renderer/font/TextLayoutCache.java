@@ -0,0 +1,191 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014 Ordinastie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.malisis.core.renderer.font;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+import net.malisis.core.registry.MalisisRegistry;
+import net.malisis.core.util.callback.CallbackResult;
+import net.malisis.core.util.callback.ICallback.CallbackOption;
+import net.minecraft.client.renderer.texture.TextureMap;
+
+/**
+ * The TextLayoutCache is a least recently used cache of the {@link TextLayout} of a {@link MalisisFont}, keyed by text and
+ * {@link FontOptions} values.<br>
+ * The cache is bounded by the approximate memory used by the layouts, and is cleared when the resources are reloaded, as the
+ * translations might have changed.<br>
+ * It is only meant to be used from the client thread.
+ *
+ * @author Ordinastie
+ */
+public class TextLayoutCache
+{
+	/** Current resources generation. */
+	private static int currentGeneration = 0;
+
+	static
+	{
+		MalisisRegistry.onTextureStitched(TextLayoutCache::onTextureStitched, CallbackOption.of());
+	}
+
+	/** Maximum memory used by the layouts, in bytes. */
+	private final int maxWeight;
+	/** Layouts, in access order. */
+	private final LinkedHashMap<Key, TextLayout> layouts = new LinkedHashMap<>(64, 0.75F, true);
+	/** Key used for lookups. */
+	private final Key lookupKey = new Key();
+	/** Memory currently used by the layouts. */
+	private int weight = 0;
+	/** Resources generation the layouts were created with. */
+	private int generation = currentGeneration;
+
+	public TextLayoutCache(int maxWeight)
+	{
+		this.maxWeight = maxWeight;
+	}
+
+	/**
+	 * Gets the {@link TextLayout} for the text and {@link FontOptions}, creating it if it's not cached.<br>
+	 * The text is only processed by the {@link MalisisFont} if <i>translate</i> is true.
+	 *
+	 * @param font the font
+	 * @param text the text
+	 * @param options the options
+	 * @param translate whether the text should be translated
+	 * @return the layout
+	 */
+	public TextLayout get(MalisisFont font, String text, FontOptions options, boolean translate)
+	{
+		if (generation != currentGeneration)
+		{
+			clear();
+			generation = currentGeneration;
+		}
+
+		TextLayout layout = layouts.get(lookupKey.set(text, options, translate));
+		if (layout == null)
+		{
+			layout = new TextLayout(font, translate ? font.processString(text, options) : text, options);
+			layouts.put(new Key().set(text, options, translate), layout);
+			weight += layout.getWeight();
+			trim();
+		}
+		return layout;
+	}
+
+	/**
+	 * Updates the memory used after the {@link TextLayout} was modified.
+	 *
+	 * @param layout the layout
+	 * @param oldWeight the weight of the layout before it was modified
+	 */
+	public void update(TextLayout layout, int oldWeight)
+	{
+		weight += layout.getWeight() - oldWeight;
+		trim();
+	}
+
+	/**
+	 * Removes all the {@link TextLayout} from this {@link TextLayoutCache}.
+	 */
+	public void clear()
+	{
+		layouts.clear();
+		weight = 0;
+	}
+
+	/**
+	 * Evicts the least recently used {@link TextLayout} until the memory used is below the maximum.
+	 */
+	private void trim()
+	{
+		Iterator<TextLayout> it = layouts.values().iterator();
+		while (weight > maxWeight && it.hasNext())
+		{
+			weight -= it.next().getWeight();
+			it.remove();
+		}
+	}
+
+	/**
+	 * Invalidates the cached {@link TextLayout} when the resources are reloaded.
+	 *
+	 * @param map the map
+	 * @return the callback result
+	 */
+	private static CallbackResult<Void> onTextureStitched(TextureMap map)
+	{
+		currentGeneration++;
+		return CallbackResult.noResult();
+	}
+
+	/**
+	 * Key for the text and the values of the {@link FontOptions}.<br>
+	 * The values are copied as {@link FontOptions} can change depending on predicates.
+	 */
+	private static class Key
+	{
+		private String text;
+		private float fontScale;
+		private int color;
+		private int flags;
+		private int hash;
+
+		private Key set(String text, FontOptions options, boolean translate)
+		{
+			this.text = text;
+			this.fontScale = options.getFontScale();
+			this.color = options.getColor();
+			//@formatter:off
+			this.flags = (options.hasShadow() ? 1 : 0)
+					| (options.isBold() ? 2 : 0)
+					| (options.isItalic() ? 4 : 0)
+					| (options.isUnderline() ? 8 : 0)
+					| (options.isStrikethrough() ? 16 : 0)
+					| (options.isObfuscated() ? 32 : 0)
+					| (options.isFormattingDisabled() ? 64 : 0)
+					| (translate ? 128 : 0);
+			//@formatter:on
+			this.hash = ((text.hashCode() * 31 + Float.floatToIntBits(fontScale)) * 31 + color) * 31 + flags;
+			return this;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj)
+		{
+			if (!(obj instanceof Key))
+				return false;
+			Key key = (Key) obj;
+			return hash == key.hash && fontScale == key.fontScale && color == key.color && flags == key.flags && text.equals(key.text);
+		}
+	}
+}
@@ -0,0 +1,176 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014 Ordinastie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.malisis.core.renderer.font;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang3.tuple.Pair;
+
+import net.malisis.core.registry.MalisisRegistry;
+import net.malisis.core.util.callback.CallbackResult;
+import net.malisis.core.util.callback.ICallback.CallbackOption;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.renderer.texture.TextureMap;
+import net.minecraft.client.resources.I18n;
+import net.minecraft.client.resources.Language;
+
+/**
+ * The TranslationCache holds the results of {@link I18n#format(String, Object...)} and of the text processing done before rendering, keyed
+ * by the raw string.<br>
+ * The cache is cleared when the language changes or the resources are reloaded, and only keeps the most recently used entries.<br>
+ * It is only meant to be used from the client thread.
+ *
+ * @author Ordinastie
+ */
+public class TranslationCache
+{
+	/** Maximum number of entries kept per cache. */
+	private static final int MAX_SIZE = 2048;
+	/** Pattern for the keys to translate inside a text. */
+	private static final Pattern pattern = Pattern.compile("\\{(.*?)}");
+
+	/** Translations per key. */
+	private static final Map<String, String> translations = new LruMap();
+	/** Processed texts per raw text. */
+	private static final Map<String, String> processed = new LruMap();
+	/** Language the entries were translated with. */
+	private static Language language;
+
+	static
+	{
+		MalisisRegistry.onTextureStitched(TranslationCache::onTextureStitched, CallbackOption.of());
+	}
+
+	/**
+	 * Translates the key.
+	 *
+	 * @param key the key
+	 * @return the translated string
+	 */
+	public static String translate(String key)
+	{
+		checkLanguage();
+		String str = translations.get(key);
+		if (str == null)
+		{
+			str = I18n.format(key);
+			translations.put(key, str);
+		}
+		return str;
+	}
+
+	/**
+	 * Processes the text before rendering.<br>
+	 * The text is translated, or if it contains {key} markers, only the keys are translated. The formatting at the beginning of the text
+	 * is kept.
+	 *
+	 * @param text the text
+	 * @return the processed text
+	 */
+	public static String process(String text)
+	{
+		checkLanguage();
+		String str = processed.get(text);
+		if (str == null)
+		{
+			Pair<String, String> p = FontOptions.getStartFormat(text);
+			str = p.getLeft() + translateKeys(p.getRight());
+			processed.put(text, str);
+		}
+		return str;
+	}
+
+	private static String translateKeys(String str)
+	{
+		if (str.indexOf('{') == -1 || str.indexOf('{') >= str.indexOf('}'))
+			return translate(str);
+
+		StringBuffer output = new StringBuffer();
+		Matcher matcher = pattern.matcher(str);
+
+		while (matcher.find())
+			matcher.appendReplacement(output, translate(matcher.group(1)));
+
+		matcher.appendTail(output);
+		return output.toString();
+	}
+
+	/**
+	 * Clears the caches if the language has changed.
+	 */
+	private static void checkLanguage()
+	{
+		Language current = Minecraft.getMinecraft().getLanguageManager().getCurrentLanguage();
+		if (current != language)
+		{
+			clear();
+			language = current;
+		}
+	}
+
+	/**
+	 * Clears the caches.
+	 */
+	public static void clear()
+	{
+		translations.clear();
+		processed.clear();
+	}
+
+	/**
+	 * Clears the caches when the resources are reloaded.
+	 *
+	 * @param map the map
+	 * @return the callback result
+	 */
+	private static CallbackResult<Void> onTextureStitched(TextureMap map)
+	{
+		clear();
+		return CallbackResult.noResult();
+	}
+
+	/**
+	 * {@link LinkedHashMap} in access order, dropping the least recently used entry past {@link #MAX_SIZE}.
+	 */
+	private static class LruMap extends LinkedHashMap<String, String>
+	{
+		private static final long serialVersionUID = 1L;
+
+		public LruMap()
+		{
+			super(64, 0.75F, true);
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Entry<String, String> eldest)
+		{
+			return size() > MAX_SIZE;
+		}
+	}
+}
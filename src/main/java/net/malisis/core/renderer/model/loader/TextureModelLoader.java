@@ -30,10 +30,13 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+import net.malisis.core.registry.MalisisRegistry;
 import net.malisis.core.renderer.RenderParameters;
 import net.malisis.core.renderer.element.Face;
 import net.malisis.core.renderer.element.Shape;
+import net.malisis.core.renderer.element.Vertex;
 import net.malisis.core.renderer.element.face.BottomFace;
 import net.malisis.core.renderer.element.face.EastFace;
 import net.malisis.core.renderer.element.face.NorthFace;
@@ -43,16 +46,32 @@ import net.malisis.core.renderer.element.face.WestFace;
 import net.malisis.core.renderer.icon.Icon;
 import net.malisis.core.renderer.icon.ProxyIcon;
 import net.malisis.core.renderer.model.IModelLoader;
+import net.malisis.core.util.callback.CallbackResult;
+import net.malisis.core.util.callback.ICallback.CallbackOption;
 import net.minecraft.client.renderer.texture.TextureAtlasSprite;
+import net.minecraft.client.renderer.texture.TextureMap;
 import net.minecraft.util.EnumFacing;
 import net.minecraft.util.ResourceLocation;
 
 /**
+ * The TextureModelLoader creates a 3D {@link Shape} from a {@link TextureAtlasSprite}, one pixel thick, by adding faces on the edges of
+ * the opaque pixels.<br>
+ * Adjacent edges of the same side are merged into a single {@link Face}, and the resulting shape is cached per sprite until the textures
+ * are stitched again.
+ *
  * @author Ordinastie
  *
  */
 public class TextureModelLoader implements IModelLoader
 {
+	/** Shapes already loaded per sprite. */
+	private static final Map<TextureAtlasSprite, Shape> cachedShapes = new ConcurrentHashMap<>();
+
+	static
+	{
+		MalisisRegistry.onTextureStitched(TextureModelLoader::clearCache, CallbackOption.of());
+	}
+
 	private Icon icon;
 	private int width;
 	private int height;
@@ -67,8 +86,14 @@ public class TextureModelLoader implements IModelLoader
 
 	public TextureModelLoader(TextureAtlasSprite icon)
 	{
+		shape = cachedShapes.get(icon);
+		if (shape != null)
+			return;
+
 		this.icon = icon instanceof Icon ? (Icon) icon : new ProxyIcon(icon);
 		load();
+		if (shape != null)
+			cachedShapes.put(icon, shape);
 	}
 
 	private void load()
@@ -115,37 +140,100 @@ public class TextureModelLoader implements IModelLoader
 
 		for (int y = 0; y < height; y++)
 		{
-			for (int x = 0; x < width; x++)
-				addPixelFaces(faces, x, y);
+			addRowFaces(faces, UP, y);
+			addRowFaces(faces, DOWN, y);
+		}
+		for (int x = 0; x < width; x++)
+		{
+			addColumnFaces(faces, WEST, x);
+			addColumnFaces(faces, EAST, x);
 		}
 
 		return faces;
 	}
 
-	private void addPixelFaces(List<Face> faces, int x, int y)
+	/**
+	 * Adds the faces for the edges facing <code>facing</code> (UP or DOWN) along a row of pixels.<br>
+	 * Consecutive edges are merged into a single face.
+	 *
+	 * @param faces the faces
+	 * @param facing the facing
+	 * @param y the y
+	 */
+	private void addRowFaces(List<Face> faces, EnumFacing facing, int y)
 	{
-		if (isPixelTransparent(x, y))
-			return;
+		int x = 0;
+		while (x < width)
+		{
+			if (!isEdge(facing, x, y))
+			{
+				x++;
+				continue;
+			}
+
+			int start = x;
+			while (x < width && isEdge(facing, x, y))
+				x++;
+
+			Face face = createFace(facing, x - start, 1, start, height - y - 1);
+			for (Vertex vertex : face.getVertexes())
+				vertex.setUV(getU(clamp(vertex.getX(), start, x)), getV(y + 0.5F));
+			faces.add(face);
+		}
+	}
 
-		EnumFacing[] facings = new EnumFacing[] { WEST, UP, EAST, DOWN };
-		for (EnumFacing facing : facings)
+	/**
+	 * Adds the faces for the edges facing <code>facing</code> (WEST or EAST) along a column of pixels.<br>
+	 * Consecutive edges are merged into a single face.
+	 *
+	 * @param faces the faces
+	 * @param facing the facing
+	 * @param x the x
+	 */
+	private void addColumnFaces(List<Face> faces, EnumFacing facing, int x)
+	{
+		int y = 0;
+		while (y < height)
 		{
-			if (isPixelTransparent(facing, x, y))
+			if (!isEdge(facing, x, y))
 			{
-				Face face = getFace(facing);
-				face.scale(1, 1, width / 16F);
-				face.translate(x, height - y - 1, 0);
-				//face.translate((faces.size() - 2) / 4, 0, 0);
-				applyTexture(face, x, y);
-				RenderParameters params = face.getParameters();
-				params.renderAllFaces.set(true);
-				params.interpolateUV.set(false);
-				//params.useEnvironmentBrightness.set(false);
-				faces.add(face);
+				y++;
+				continue;
 			}
+
+			int start = y;
+			while (y < height && isEdge(facing, x, y))
+				y++;
+
+			Face face = createFace(facing, 1, y - start, x, height - y);
+			for (Vertex vertex : face.getVertexes())
+				vertex.setUV(getU(x + 0.5F), getV(clamp(height - vertex.getY(), start, y)));
+			faces.add(face);
 		}
 	}
 
+	/**
+	 * Creates a {@link Face} for the <code>facing</code>, covering <code>w</code> by <code>h</code> pixels from the position.
+	 *
+	 * @param facing the facing
+	 * @param w the w
+	 * @param h the h
+	 * @param x the x
+	 * @param y the y
+	 * @return the face
+	 */
+	private Face createFace(EnumFacing facing, int w, int h, int x, int y)
+	{
+		Face face = getFace(facing);
+		face.scale(w, h, width / 16F);
+		face.translate(x, y, 0);
+		RenderParameters params = face.getParameters();
+		params.renderAllFaces.set(true);
+		params.interpolateUV.set(false);
+		//params.useEnvironmentBrightness.set(false);
+		return face;
+	}
+
 	private Face getFace(EnumFacing facing)
 	{
 		switch (facing)
@@ -163,15 +251,27 @@ public class TextureModelLoader implements IModelLoader
 		}
 	}
 
-	private void applyTexture(Face face, int x, int y)
+	/**
+	 * Clamps the pixel coordinate slightly inside the range so that the UVs don't bleed into the neighbouring pixels.
+	 *
+	 * @param value the value
+	 * @param min the min
+	 * @param max the max
+	 * @return the float
+	 */
+	private float clamp(double value, int min, int max)
+	{
+		return (float) Math.max(min + 0.01F, Math.min(max - 0.01F, value));
+	}
+
+	private float getU(float x)
 	{
-		//x = 0;
-		y++;
-		float u = icon.getInterpolatedU(((float) x / width) * 16F + 0.01F);
-		float v = icon.getInterpolatedV(((float) y / height) * 16F - 0.01F);
-		float U = icon.getInterpolatedU(((float) x / width) * 16 + 0.01F);
-		float V = icon.getInterpolatedV(((float) y / height) * 16 - 0.01F);
-		face.setTexture(new Icon(x + "." + y, u, v, U, V));
+		return icon.getInterpolatedU(x / width * 16F);
+	}
+
+	private float getV(float y)
+	{
+		return icon.getInterpolatedV(y / height * 16F);
 	}
 
 	private int getPixel(int x, int y)
@@ -192,12 +292,38 @@ public class TextureModelLoader implements IModelLoader
 		return isPixelTransparent(x + facing.getFrontOffsetX(), y - facing.getFrontOffsetY());
 	}
 
+	/**
+	 * Checks whether the pixel is opaque and its neighbour on the side is transparent.
+	 *
+	 * @param facing the facing
+	 * @param x the x
+	 * @param y the y
+	 * @return true, if successful
+	 */
+	private boolean isEdge(EnumFacing facing, int x, int y)
+	{
+		return !isPixelTransparent(x, y) && isPixelTransparent(facing, x, y);
+	}
+
 	@Override
 	public Map<String, Shape> getShapes()
 	{
 		HashMap<String, Shape> map = new HashMap<>();
+		//the cached shape is shared, so give a copy
 		if (shape != null)
-			map.put("shape", shape);
+			map.put("shape", new Shape(shape));
 		return map;
 	}
+
+	/**
+	 * Clears the cached shapes when the textures are stitched.
+	 *
+	 * @param map the map
+	 * @return the callback result
+	 */
+	private static CallbackResult<Void> clearCache(TextureMap map)
+	{
+		cachedShapes.clear();
+		return CallbackResult.noResult();
+	}
 }
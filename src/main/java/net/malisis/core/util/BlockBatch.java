@@ -0,0 +1,273 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014 Ordinastie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.malisis.core.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import gnu.trove.map.hash.TLongObjectHashMap;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.init.Blocks;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
+
+/**
+ * The BlockBatch groups block changes by {@link Chunk} and 16x16x16 section to apply them in bulk.<br>
+ * Each change is applied directly to the chunk, which processes its pre and post set block callbacks, and the light checks and client
+ * updates are processed once the whole chunk is done.<br>
+ * When the world captures block snapshots for Forge, the changes go through {@link World#setBlockState(BlockPos, IBlockState, int)}
+ * instead so they can be reverted.<br>
+ * Flags have the same meaning as for {@link World#setBlockState(BlockPos, IBlockState, int)}.
+ *
+ * @author Ordinastie
+ */
+public class BlockBatch
+{
+	/** The world where the changes happen. */
+	private final World world;
+	/** Pending changes per chunk. */
+	private final TLongObjectHashMap<ChunkChanges> chunks = new TLongObjectHashMap<>();
+	/** Number of pending changes. */
+	private int size = 0;
+
+	public BlockBatch(World world)
+	{
+		this.world = world;
+	}
+
+	/**
+	 * Gets the number of pending changes in this {@link BlockBatch}.
+	 *
+	 * @return the size
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Queues the {@link IBlockState} to be set at the {@link BlockPos}.<br>
+	 * If a change was already queued for that position, it is replaced.
+	 *
+	 * @param pos the pos
+	 * @param state the state
+	 * @return this {@link BlockBatch}
+	 */
+	public BlockBatch set(BlockPos pos, IBlockState state)
+	{
+		if (world.isOutsideBuildHeight(pos))
+			return this;
+
+		long key = ChunkPos.asLong(pos.getX() >> 4, pos.getZ() >> 4);
+		ChunkChanges changes = chunks.get(key);
+		if (changes == null)
+		{
+			changes = new ChunkChanges(pos.getX() >> 4, pos.getZ() >> 4);
+			chunks.put(key, changes);
+		}
+		if (changes.set(pos.toImmutable(), state))
+			size++;
+		return this;
+	}
+
+	/**
+	 * Queues air to be set at the {@link BlockPos}.
+	 *
+	 * @param pos the pos
+	 * @return this {@link BlockBatch}
+	 */
+	public BlockBatch setToAir(BlockPos pos)
+	{
+		return set(pos, Blocks.AIR.getDefaultState());
+	}
+
+	/**
+	 * Applies all the pending changes to the world and clears this {@link BlockBatch}.
+	 *
+	 * @param flags the flags
+	 * @return the number of blocks actually changed
+	 */
+	public int apply(int flags)
+	{
+		int count = 0;
+		for (ChunkChanges changes : chunks.valueCollection())
+			count += changes.apply(flags);
+
+		chunks.clear();
+		size = 0;
+		return count;
+	}
+
+	/**
+	 * Holds the changes for a single {@link Chunk}, per section.
+	 */
+	private class ChunkChanges
+	{
+		private final int chunkX;
+		private final int chunkZ;
+		@SuppressWarnings("unchecked")
+		private final Map<BlockPos, Change>[] sections = new Map[16];
+
+		public ChunkChanges(int chunkX, int chunkZ)
+		{
+			this.chunkX = chunkX;
+			this.chunkZ = chunkZ;
+		}
+
+		public boolean set(BlockPos pos, IBlockState state)
+		{
+			int index = pos.getY() >> 4;
+			if (sections[index] == null)
+				sections[index] = new LinkedHashMap<>();
+			return sections[index].put(pos, new Change(pos, state)) == null;
+		}
+
+		public int apply(int flags)
+		{
+			//snapshots are reverted and notified by Forge itself
+			if (world.captureBlockSnapshots && !world.isRemote)
+				return applyToWorld(flags);
+
+			Chunk chunk = world.getChunkFromChunkCoords(chunkX, chunkZ);
+			List<Change> list = new ArrayList<>();
+			for (Map<BlockPos, Change> section : sections)
+			{
+				if (section == null)
+					continue;
+				for (Change change : section.values())
+					if (applyChange(chunk, change))
+						list.add(change);
+			}
+
+			updateLight(list);
+			notifyChanges(chunk, list, flags);
+
+			return list.size();
+		}
+
+		/**
+		 * Applies the {@link Change} to the {@link Chunk}.<br>
+		 * The old state is read right before, as previous changes may have cascaded to this position.
+		 *
+		 * @param chunk the chunk
+		 * @param change the change
+		 * @return true, if the block was changed
+		 */
+		private boolean applyChange(Chunk chunk, Change change)
+		{
+			change.oldState = chunk.getBlockState(change.pos);
+			return chunk.setBlockState(change.pos, change.newState) != null;
+		}
+
+		/**
+		 * Applies the changes through the {@link World}, one by one.
+		 *
+		 * @param flags the flags
+		 * @return the number of blocks actually changed
+		 */
+		private int applyToWorld(int flags)
+		{
+			int count = 0;
+			for (Map<BlockPos, Change> section : sections)
+			{
+				if (section == null)
+					continue;
+				for (Change change : section.values())
+					if (world.setBlockState(change.pos, change.newState, flags))
+						count++;
+			}
+			return count;
+		}
+
+		private void updateLight(List<Change> list)
+		{
+			for (Change change : list)
+			{
+				if (change.newState.getLightOpacity(world, change.pos) != change.oldState.getLightOpacity(world, change.pos)
+						|| change.newState.getLightValue(world, change.pos) != change.oldState.getLightValue(world, change.pos))
+					world.checkLight(change.pos);
+			}
+		}
+
+		private void notifyChanges(Chunk chunk, List<Change> list, int flags)
+		{
+			if (list.isEmpty())
+				return;
+
+			if ((flags & 2) != 0 && chunk.isPopulated())
+			{
+				if (world.isRemote)
+				{
+					//client : one render update per section
+					for (int index = 0; index < sections.length; index++)
+					{
+						if (sections[index] != null)
+							world.markBlockRangeForRenderUpdate(chunkX << 4, index << 4, chunkZ << 4,
+									(chunkX << 4) + 15, (index << 4) + 15, (chunkZ << 4) + 15);
+					}
+				}
+				else
+				{
+					//server : changes are coalesced by the PlayerChunkMapEntry and sent once per tick
+					for (Change change : list)
+						world.notifyBlockUpdate(change.pos, change.oldState, change.newState, flags);
+				}
+			}
+
+			if (world.isRemote)
+				return;
+
+			for (Change change : list)
+			{
+				if ((flags & 1) != 0)
+					world.notifyNeighborsRespectingDebug(change.pos, change.oldState.getBlock(), true);
+				if ((flags & 16) == 0)
+					world.updateObservingBlocksAt(change.pos, change.newState.getBlock());
+				if (change.newState.hasComparatorInputOverride())
+					world.updateComparatorOutputLevel(change.pos, change.newState.getBlock());
+			}
+		}
+	}
+
+	/**
+	 * A single pending change.
+	 */
+	private static class Change
+	{
+		private final BlockPos pos;
+		private final IBlockState newState;
+		private IBlockState oldState;
+
+		public Change(BlockPos pos, IBlockState newState)
+		{
+			this.pos = pos;
+			this.newState = newState;
+		}
+	}
+}
@@ -0,0 +1,160 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014 Ordinastie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.malisis.core.util.blockdata;
+
+import java.util.function.LongFunction;
+import java.util.function.ToLongFunction;
+
+import com.google.common.base.Function;
+
+import io.netty.buffer.ByteBuf;
+import net.minecraft.util.math.BlockPos;
+
+/**
+ * A {@link BlockDataCodec} converts the custom data registered in the {@link BlockDataHandler} from and into a {@link ByteBuf}.<br>
+ * Data is written directly into the output buffer, so that saving a chunk doesn't need to allocate a buffer per entry.
+ *
+ * <p>
+ * {@link Packed} codecs hold fixed-width data that fits in a <code>long</code>. The {@link BlockDataHandler} stores such data in
+ * primitive arrays instead of keeping an object per entry.
+ *
+ * @author Ordinastie
+ * @param <T> the type of data
+ */
+public abstract class BlockDataCodec<T>
+{
+	/** Codec for {@link BlockPos} data, stored as {@link BlockPos#toLong()}. */
+	public static final Packed<BlockPos> BLOCK_POS = new Packed<>(8, BlockPos::toLong, BlockPos::fromLong);
+	/** Codec for {@link Integer} data. */
+	public static final Packed<Integer> INTEGER = new Packed<>(4, Integer::longValue, l -> (int) l);
+	/** Codec for {@link Long} data. */
+	public static final Packed<Long> LONG = new Packed<>(8, Long::longValue, Long::valueOf);
+
+	/**
+	 * Reads the data from the {@link ByteBuf}.
+	 *
+	 * @param buf the buf
+	 * @return the data
+	 */
+	public abstract T read(ByteBuf buf);
+
+	/**
+	 * Writes the data into the {@link ByteBuf}.
+	 *
+	 * @param buf the buf
+	 * @param data the data
+	 */
+	public abstract void write(ByteBuf buf, T data);
+
+	/**
+	 * Creates a {@link BlockDataCodec} from a pair of conversion functions.<br>
+	 * The buffer returned by <code>toBytes</code> is copied into the output buffer.
+	 *
+	 * @param <T> the generic type
+	 * @param fromBytes the from bytes
+	 * @param toBytes the to bytes
+	 * @return the block data codec
+	 */
+	public static <T> BlockDataCodec<T> of(Function<ByteBuf, T> fromBytes, Function<T, ByteBuf> toBytes)
+	{
+		return new BlockDataCodec<T>()
+		{
+			@Override
+			public T read(ByteBuf buf)
+			{
+				return fromBytes.apply(buf);
+			}
+
+			@Override
+			public void write(ByteBuf buf, T data)
+			{
+				buf.writeBytes(toBytes.apply(data));
+			}
+		};
+	}
+
+	/**
+	 * Codec for fixed-width data packed into a <code>long</code>.
+	 *
+	 * @param <T> the type of data
+	 */
+	public static class Packed<T> extends BlockDataCodec<T>
+	{
+		private final int size;
+		private final ToLongFunction<T> pack;
+		private final LongFunction<T> unpack;
+
+		/**
+		 * Instantiates a new {@link Packed} codec.
+		 *
+		 * @param size the number of bytes written, either 4 or 8
+		 * @param pack the function packing the data into a long
+		 * @param unpack the function unpacking the data from a long
+		 */
+		public Packed(int size, ToLongFunction<T> pack, LongFunction<T> unpack)
+		{
+			if (size != 4 && size != 8)
+				throw new IllegalArgumentException("Packed data must be 4 or 8 bytes wide : " + size);
+			this.size = size;
+			this.pack = pack;
+			this.unpack = unpack;
+		}
+
+		public long pack(T data)
+		{
+			return pack.applyAsLong(data);
+		}
+
+		public T unpack(long value)
+		{
+			return unpack.apply(value);
+		}
+
+		public long readPacked(ByteBuf buf)
+		{
+			return size == 4 ? buf.readInt() : buf.readLong();
+		}
+
+		public void writePacked(ByteBuf buf, long value)
+		{
+			if (size == 4)
+				buf.writeInt((int) value);
+			else
+				buf.writeLong(value);
+		}
+
+		@Override
+		public T read(ByteBuf buf)
+		{
+			return unpack(readPacked(buf));
+		}
+
+		@Override
+		public void write(ByteBuf buf, T data)
+		{
+			writePacked(buf, pack(data));
+		}
+	}
+}
@@ -25,15 +25,25 @@
 package net.malisis.core.util.blockdata;
 
 import java.lang.reflect.Field;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.UnaryOperator;
+
+import org.apache.commons.lang3.ArrayUtils;
 
 import com.google.common.base.Function;
-import com.google.common.collect.HashBasedTable;
-import com.google.common.collect.Table;
+import com.google.common.collect.MapMaker;
 
+import gnu.trove.iterator.TShortIterator;
+import gnu.trove.map.hash.TLongObjectHashMap;
+import gnu.trove.set.hash.TShortHashSet;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.buffer.Unpooled;
 import net.malisis.core.MalisisCore;
 import net.malisis.core.asm.AsmUtils;
@@ -42,14 +52,17 @@ import net.malisis.core.util.Silenced;
 import net.malisis.core.util.Utils;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
 import net.minecraft.world.ChunkCache;
 import net.minecraft.world.IBlockAccess;
 import net.minecraft.world.World;
+import net.minecraft.world.WorldServer;
 import net.minecraft.world.chunk.Chunk;
 import net.minecraftforge.common.MinecraftForge;
 import net.minecraftforge.event.world.ChunkDataEvent;
 import net.minecraftforge.event.world.ChunkEvent;
 import net.minecraftforge.event.world.ChunkWatchEvent;
+import net.minecraftforge.event.world.WorldEvent;
 import net.minecraftforge.fml.client.FMLClientHandler;
 import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
 
@@ -58,12 +71,17 @@ import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
  *
  * <p>
  * Custom data is identified by a {@link String} identifier, and a way to convert from and into a {@link ByteBuf} using
- * {@link #registerBlockData(String, Function, Function)}.
+ * {@link #registerBlockData(String, BlockDataCodec)} or {@link #registerBlockData(String, Function, Function)}.
  *
  * <p>
  * Custom data is then stored and retrieved using {@link #setData(String, IBlockAccess, BlockPos, Object)},
  * {@link #getData(String, IBlockAccess, BlockPos)} and {@link #removeData(String, IBlockAccess, BlockPos)} with the corresponding
- * identifier.
+ * identifier, or with the {@link HandlerInfo} returned at registration to skip the identifier lookup.
+ *
+ * <p>
+ * The data is stored per {@link World}, keyed by the packed {@link ChunkPos} and the id of the identifier. The chunk maps and their arrays
+ * are copied on write and published as a whole, so the store can be read from any thread (chunk render workers, chunk IO threads) without
+ * locking. Writes are serialized, and only happen when the data of a chunk is loaded, created or unloaded.
  *
  * @author Ordinastie
  */
@@ -85,7 +103,10 @@ public class BlockDataHandler
 	}
 
 	private Map<String, HandlerInfo<?>> handlerInfos = new HashMap<>();
-	private static final ThreadLocal<Table<String, Chunk, ChunkData<?>>> datas = ThreadLocal.withInitial(HashBasedTable::create);
+	/** Data per world, per packed chunk position, indexed by {@link HandlerInfo#id}. The chunk maps are never modified once stored. */
+	private final ConcurrentMap<World, TLongObjectHashMap<ChunkData<?>[]>> datas = new MapMaker().weakKeys().makeMap();
+	/** Data with changes not yet sent to the clients, per world. Only used on the server thread. */
+	private final Map<World, Set<ChunkData<?>>> dirtyDatas = new WeakHashMap<>();
 
 	private BlockDataHandler()
 	{
@@ -121,55 +142,144 @@ public class BlockDataHandler
 	}
 
 	/**
-	 * Gets the {@link ChunkData} for the specified identifier and {@link BlockPos}
+	 * Updates the {@link ChunkData} array stored for the chunk in a copy of the store of the {@link World}, and publishes that copy.<br>
+	 * The store is left untouched if the update returns the same array.
+	 *
+	 * @param world the world
+	 * @param key the packed chunk position
+	 * @param update the update, returning the new array, or null to remove it
+	 * @return the array stored for the chunk
+	 */
+	private synchronized ChunkData<?>[] updateChunk(World world, long key, UnaryOperator<ChunkData<?>[]> update)
+	{
+		TLongObjectHashMap<ChunkData<?>[]> worldData = datas.get(world);
+		ChunkData<?>[] array = worldData != null ? worldData.get(key) : null;
+		ChunkData<?>[] updated = update.apply(array);
+		if (updated == array)
+			return array;
+
+		worldData = worldData != null ? new TLongObjectHashMap<>(worldData) : new TLongObjectHashMap<>();
+		if (updated != null)
+			worldData.put(key, updated);
+		else
+			worldData.remove(key);
+		datas.put(world, worldData);
+		return updated;
+	}
+
+	/**
+	 * Gets the {@link HandlerInfo} registered for the identifier.
 	 *
 	 * @param <T> the generic type
 	 * @param identifier the identifier
+	 * @return the handler info, or null if none is registered
+	 */
+	@SuppressWarnings("unchecked")
+	private <T> HandlerInfo<T> handlerInfo(String identifier)
+	{
+		return (HandlerInfo<T>) handlerInfos.get(identifier);
+	}
+
+	/**
+	 * Gets the {@link ChunkData} for the specified {@link HandlerInfo} and {@link BlockPos}
+	 *
+	 * @param <T> the generic type
+	 * @param handlerInfo the handler info
 	 * @param world the world
 	 * @param pos the pos
 	 * @return the chunk data
 	 */
-	private <T> ChunkData<T> chunkData(String identifier, World world, BlockPos pos)
+	private <T> ChunkData<T> chunkData(HandlerInfo<T> handlerInfo, World world, BlockPos pos)
 	{
-		return world != null ? chunkData(identifier, world, world.getChunkFromBlockCoords(pos)) : null;
+		return world != null ? chunkData(handlerInfo, world, pos.getX() >> 4, pos.getZ() >> 4) : null;
 	}
 
 	/**
-	 * Gets the {@link ChunkData} for the specified identifier and {@link Chunk}.
+	 * Gets the {@link ChunkData} for the specified {@link HandlerInfo} and chunk coordinates.<br>
+	 * Does not lock and can be called from any thread.
 	 *
 	 * @param <T> the generic type
-	 * @param identifier the identifier
+	 * @param handlerInfo the handler info
 	 * @param world the world
-	 * @param chunk the chunk
+	 * @param chunkX the chunk X
+	 * @param chunkZ the chunk Z
 	 * @return the chunk data
 	 */
 	@SuppressWarnings("unchecked")
-	private <T> ChunkData<T> chunkData(String identifier, World world, Chunk chunk)
+	private <T> ChunkData<T> chunkData(HandlerInfo<T> handlerInfo, World world, int chunkX, int chunkZ)
 	{
-		Table<String, Chunk, ChunkData<?>> data = datas.get();
-		return (ChunkData<T>) data.get(identifier, chunk);
+		TLongObjectHashMap<ChunkData<?>[]> worldData = datas.get(world);
+		if (handlerInfo == null || worldData == null)
+			return null;
 
+		ChunkData<?>[] array = worldData.get(ChunkPos.asLong(chunkX, chunkZ));
+		if (array == null || handlerInfo.id >= array.length)
+			return null;
+		return (ChunkData<T>) array[handlerInfo.id];
 	}
 
 	/**
-	 * Creates the {@link ChunkData} for specified identifier for the {@link Chunk} at the {@link BlockPos}.
+	 * Creates the {@link ChunkData} for specified {@link HandlerInfo} for the {@link Chunk} at the {@link BlockPos}.<br>
+	 * If the data was created concurrently, the existing one is returned instead.
 	 *
 	 * @param <T> the generic type
-	 * @param identifier the identifier
+	 * @param handlerInfo the handler info
 	 * @param world the world
 	 * @param pos the pos
 	 * @return the chunk data
 	 */
 	@SuppressWarnings("unchecked")
-	private <T> ChunkData<T> createChunkData(String identifier, World world, BlockPos pos)
+	private <T> ChunkData<T> createChunkData(HandlerInfo<T> handlerInfo, World world, BlockPos pos)
+	{
+		ChunkData<?>[] array = updateChunk(world, ChunkPos.asLong(pos.getX() >> 4, pos.getZ() >> 4), current -> {
+			if (current != null && handlerInfo.id < current.length && current[handlerInfo.id] != null)
+				return current;
+			return with(current, new ChunkData<>(handlerInfo, pos.getX() >> 4, pos.getZ() >> 4));
+		});
+		return (ChunkData<T>) array[handlerInfo.id];
+	}
+
+	/**
+	 * Stores the {@link ChunkData} for the chunk at the specified coordinates, replacing the existing one.
+	 *
+	 * @param world the world
+	 * @param chunkX the chunk X
+	 * @param chunkZ the chunk Z
+	 * @param chunkData the chunk data
+	 */
+	private void putChunkData(World world, int chunkX, int chunkZ, ChunkData<?> chunkData)
 	{
-		Chunk chunk = world.getChunkFromBlockCoords(pos);
+		updateChunk(world, ChunkPos.asLong(chunkX, chunkZ), current -> with(current, chunkData));
+	}
 
-		//System.out.println("createChunkData (" + chunk.xPosition + "/" + chunk.zPosition + ") for " + identifier);
+	/**
+	 * Copies the array with the {@link ChunkData} set at the index of its {@link HandlerInfo}.<br>
+	 * Arrays are never modified once stored so that readers don't need to lock.
+	 *
+	 * @param array the array
+	 * @param chunkData the chunk data
+	 * @return the new array
+	 */
+	private ChunkData<?>[] with(ChunkData<?>[] array, ChunkData<?> chunkData)
+	{
+		int size = Math.max(handlerInfos.size(), chunkData.handlerInfos.id + 1);
+		array = array == null ? new ChunkData<?>[size] : Arrays.copyOf(array, Math.max(array.length, size));
+		array[chunkData.handlerInfos.id] = chunkData;
+		return array;
+	}
 
-		ChunkData<T> chunkData = new ChunkData<>((HandlerInfo<T>) handlerInfos.get(identifier));
-		datas.get().put(identifier, chunk, chunkData);
-		return chunkData;
+	/**
+	 * Removes all the {@link ChunkData} for the {@link Chunk}.
+	 *
+	 * @param chunk the chunk
+	 */
+	private void removeChunkData(Chunk chunk)
+	{
+		TLongObjectHashMap<ChunkData<?>[]> worldData = datas.get(chunk.getWorld());
+		long key = ChunkPos.asLong(chunk.x, chunk.z);
+		//most chunks have no data, don't copy the store for them
+		if (worldData != null && worldData.containsKey(key))
+			updateChunk(chunk.getWorld(), key, current -> null);
 	}
 
 	//#region Events
@@ -191,9 +301,9 @@ public class BlockDataHandler
 
 			//			MalisisCore.message("onDataLoad (" + event.getChunk().xPosition + "/" + event.getChunk().zPosition + ") for "
 			//					+ handlerInfo.identifier);
-			ChunkData<?> chunkData = new ChunkData<>(handlerInfo);
-			chunkData.fromBytes(Unpooled.copiedBuffer(nbt.getByteArray(handlerInfo.identifier)));
-			datas.get().put(handlerInfo.identifier, event.getChunk(), chunkData);
+			ChunkData<?> chunkData = new ChunkData<>(handlerInfo, event.getChunk().x, event.getChunk().z);
+			chunkData.fromBytes(Unpooled.wrappedBuffer(nbt.getByteArray(handlerInfo.identifier)));
+			putChunkData(event.getWorld(), event.getChunk().x, event.getChunk().z, chunkData);
 		}
 	}
 
@@ -209,21 +319,28 @@ public class BlockDataHandler
 
 		for (HandlerInfo<?> handlerInfo : handlerInfos.values())
 		{
-			ChunkData<?> chunkData = chunkData(handlerInfo.identifier, event.getWorld(), event.getChunk());
+			ChunkData<?> chunkData = chunkData(handlerInfo, event.getWorld(), event.getChunk().x, event.getChunk().z);
 			if (chunkData != null && chunkData.hasData())
 			{
 				//				MalisisCore.message("onDataSave (" + event.getChunk().xPosition + "/" + event.getChunk().zPosition + ") for "
 				//						+ handlerInfo.identifier);
-				ByteBuf buf = Unpooled.buffer();
-				chunkData.toBytes(buf);
-				nbt.setByteArray(handlerInfo.identifier, buf.capacity(buf.writerIndex()).array());
+				ByteBuf buf = PooledByteBufAllocator.DEFAULT.heapBuffer();
+				try
+				{
+					byte[] bytes = new byte[chunkData.toBytes(buf).readableBytes()];
+					buf.readBytes(bytes);
+					nbt.setByteArray(handlerInfo.identifier, bytes);
+				}
+				finally
+				{
+					buf.release();
+				}
 			}
-
-			//unload data on save because saving is called after unload
-			if (event.getChunk().unloadQueued)
-				datas.get().remove(handlerInfo.identifier, event.getChunk());
-
 		}
+
+		//unload data on save because saving is called after unload
+		if (event.getChunk().unloadQueued)
+			removeChunkData(event.getChunk());
 	}
 
 	/**
@@ -239,10 +356,20 @@ public class BlockDataHandler
 		if (!event.getWorld().isRemote)
 			return;
 
-		for (HandlerInfo<?> handlerInfo : handlerInfos.values())
-		{
-			datas.get().remove(handlerInfo.identifier, event.getChunk());
-		}
+		removeChunkData(event.getChunk());
+	}
+
+	/**
+	 * Discards all the data stored for the {@link World}.
+	 *
+	 * @param event the event
+	 */
+	@SubscribeEvent
+	public void onWorldUnload(WorldEvent.Unload event)
+	{
+		datas.remove(event.getWorld());
+		if (!event.getWorld().isRemote)
+			dirtyDatas.remove(event.getWorld());
 	}
 
 	/**
@@ -257,7 +384,7 @@ public class BlockDataHandler
 		Chunk chunk = event.getPlayer().world.getChunkFromChunkCoords(event.getChunk().x, event.getChunk().z);
 		for (HandlerInfo<?> handlerInfo : handlerInfos.values())
 		{
-			ChunkData<?> chunkData = instance.chunkData(handlerInfo.identifier, chunk.getWorld(), chunk);
+			ChunkData<?> chunkData = instance.chunkData(handlerInfo, chunk.getWorld(), chunk.x, chunk.z);
 			if (chunkData != null && chunkData.hasData())
 				BlockDataMessage.sendBlockData(chunk, handlerInfo.identifier, chunkData.toBytes(Unpooled.buffer()), event.getPlayer());
 		}
@@ -272,10 +399,28 @@ public class BlockDataHandler
 	 * @param identifier the identifier
 	 * @param fromBytes the from bytes
 	 * @param toBytes the to bytes
+	 * @return the handler info to use to access the data
 	 */
-	public static <T> void registerBlockData(String identifier, Function<ByteBuf, T> fromBytes, Function<T, ByteBuf> toBytes)
+	public static <T> HandlerInfo<T> registerBlockData(String identifier, Function<ByteBuf, T> fromBytes, Function<T, ByteBuf> toBytes)
 	{
-		instance.handlerInfos.put(identifier, new HandlerInfo<>(identifier, fromBytes, toBytes));
+		return registerBlockData(identifier, BlockDataCodec.of(fromBytes, toBytes));
+	}
+
+	/**
+	 * Registers a custom block data with the specified identifier, converted with the {@link BlockDataCodec}.
+	 *
+	 * @param <T> the generic type
+	 * @param identifier the identifier
+	 * @param codec the codec
+	 * @return the handler info to use to access the data
+	 */
+	public static <T> HandlerInfo<T> registerBlockData(String identifier, BlockDataCodec<T> codec)
+	{
+		HandlerInfo<?> existing = instance.handlerInfos.get(identifier);
+		int id = existing != null ? existing.id : instance.handlerInfos.size();
+		HandlerInfo<T> handlerInfo = new HandlerInfo<>(id, identifier, codec);
+		instance.handlerInfos.put(identifier, handlerInfo);
+		return handlerInfo;
 	}
 
 	/**
@@ -289,7 +434,21 @@ public class BlockDataHandler
 	 */
 	public static <T> T getData(String identifier, IBlockAccess world, BlockPos pos)
 	{
-		ChunkData<T> chunkData = instance.<T> chunkData(identifier, instance.world(world), pos);
+		return getData(instance.<T> handlerInfo(identifier), world, pos);
+	}
+
+	/**
+	 * Gets the custom data stored at the {@link BlockPos} for the specified {@link HandlerInfo}.
+	 *
+	 * @param <T> the generic type
+	 * @param handlerInfo the handler info
+	 * @param world the world
+	 * @param pos the pos
+	 * @return the data
+	 */
+	public static <T> T getData(HandlerInfo<T> handlerInfo, IBlockAccess world, BlockPos pos)
+	{
+		ChunkData<T> chunkData = instance.chunkData(handlerInfo, instance.world(world), pos);
 		return chunkData != null ? chunkData.getData(pos) : null;
 	}
 
@@ -307,9 +466,24 @@ public class BlockDataHandler
 		setData(identifier, world, pos, data, false);
 	}
 
+	/**
+	 * Sets the custom data to be stored at the {@link BlockPos} for the specified {@link HandlerInfo}.
+	 *
+	 * @param <T> the generic type
+	 * @param handlerInfo the handler info
+	 * @param world the world
+	 * @param pos the pos
+	 * @param data the data
+	 */
+	public static <T> void setData(HandlerInfo<T> handlerInfo, IBlockAccess world, BlockPos pos, T data)
+	{
+		setData(handlerInfo, world, pos, data, false);
+	}
+
 	/**
 	 * Sets the custom data to be stored at the {@link BlockPos} for the specified identifier and eventually sends the data to the clients
-	 * watching the chunk.
+	 * watching the chunk.<br>
+	 * Changes sent to the clients are grouped per chunk and sent at the end of the tick by {@link #sendChanges(World)}.
 	 *
 	 * @param <T> the generic type
 	 * @param identifier the identifier
@@ -319,18 +493,34 @@ public class BlockDataHandler
 	 * @param sendToClients the send to clients
 	 */
 	public static <T> void setData(String identifier, IBlockAccess world, BlockPos pos, T data, boolean sendToClients)
+	{
+		setData(instance.<T> handlerInfo(identifier), world, pos, data, sendToClients);
+	}
+
+	/**
+	 * Sets the custom data to be stored at the {@link BlockPos} for the specified {@link HandlerInfo} and eventually sends the data to
+	 * the clients watching the chunk.
+	 *
+	 * @param <T> the generic type
+	 * @param handlerInfo the handler info
+	 * @param world the world
+	 * @param pos the pos
+	 * @param data the data
+	 * @param sendToClients the send to clients
+	 */
+	public static <T> void setData(HandlerInfo<T> handlerInfo, IBlockAccess world, BlockPos pos, T data, boolean sendToClients)
 	{
 		World w = instance.world(world);
-		ChunkData<T> chunkData = instance.<T> chunkData(identifier, w, pos);
+		ChunkData<T> chunkData = instance.chunkData(handlerInfo, w, pos);
 		if (chunkData == null)
-			chunkData = instance.<T> createChunkData(identifier, instance.world(world), pos);
+			chunkData = instance.createChunkData(handlerInfo, w, pos);
 
 		//MalisisCore.message("SetData " + identifier + " for " + pos + " > " + data);
 		chunkData.setData(pos, data);
 		if (sendToClients && !w.isRemote)
 		{
-			ByteBuf buf = chunkData.toBytes(Unpooled.buffer());
-			Utils.getLoadedChunk(w, pos).ifPresent(chunk -> BlockDataMessage.sendBlockData(chunk, identifier, buf));
+			chunkData.markDirty(pos);
+			instance.dirtyDatas.computeIfAbsent(w, k -> new HashSet<>()).add(chunkData);
 		}
 	}
 
@@ -363,6 +553,34 @@ public class BlockDataHandler
 		setData(identifier, world, pos, null, sendToClients);
 	}
 
+	/**
+	 * Removes the custom data stored at the {@link BlockPos} for the specified {@link HandlerInfo}.
+	 *
+	 * @param <T> the generic type
+	 * @param handlerInfo the handler info
+	 * @param world the world
+	 * @param pos the pos
+	 */
+	public static <T> void removeData(HandlerInfo<T> handlerInfo, IBlockAccess world, BlockPos pos)
+	{
+		removeData(handlerInfo, world, pos, false);
+	}
+
+	/**
+	 * Removes the custom data stored at the {@link BlockPos} for the specified {@link HandlerInfo} and eventually sends it to clients
+	 * watching the chunk.
+	 *
+	 * @param <T> the generic type
+	 * @param handlerInfo the handler info
+	 * @param world the world
+	 * @param pos the pos
+	 * @param sendToClients the send to clients
+	 */
+	public static <T> void removeData(HandlerInfo<T> handlerInfo, IBlockAccess world, BlockPos pos, boolean sendToClients)
+	{
+		setData(handlerInfo, world, pos, null, sendToClients);
+	}
+
 	/**
 	 * Called on the client when receiving the data from the server, either because client started to watch the chunk or server manually
 	 * sent the data.
@@ -379,9 +597,51 @@ public class BlockDataHandler
 			return;
 
 		//MalisisCore.message("Received blockData (" + chunkX + "/" + chunkZ + ") for " + identifier);
-		Chunk chunk = Utils.getClientWorld().getChunkFromChunkCoords(chunkX, chunkZ);
-		ChunkData<?> chunkData = new ChunkData<>(handlerInfo).fromBytes(data);
-		datas.get().put(handlerInfo.identifier, chunk, chunkData);
+		ChunkData<?> chunkData = new ChunkData<>(handlerInfo, chunkX, chunkZ).fromBytes(data);
+		instance.putChunkData(Utils.getClientWorld(), chunkX, chunkZ, chunkData);
+	}
+
+	/**
+	 * Called on the client when receiving the changes made on the server to the data of a chunk.
+	 *
+	 * @param chunkX the chunk X
+	 * @param chunkZ the chunk Z
+	 * @param identifier the identifier
+	 * @param data the data
+	 */
+	static void updateBlockData(int chunkX, int chunkZ, String identifier, ByteBuf data)
+	{
+		HandlerInfo<?> handlerInfo = instance.handlerInfos.get(identifier);
+		World world = Utils.getClientWorld();
+		if (handlerInfo == null || world == null)
+			return;
+
+		ChunkData<?> chunkData = instance.chunkData(handlerInfo, world, chunkX, chunkZ);
+		if (chunkData == null)
+			chunkData = instance.createChunkData(handlerInfo, world, new BlockPos(chunkX << 4, 0, chunkZ << 4));
+		chunkData.readChanges(data);
+	}
+
+	/**
+	 * Server only.<br>
+	 * Sends the changes made during the tick to the clients watching the chunks.<br>
+	 * Called at the end of the {@link WorldServer} tick.
+	 *
+	 * @param world the world
+	 */
+	public static void sendChanges(World world)
+	{
+		Set<ChunkData<?>> dirty = instance.dirtyDatas.remove(world);
+		if (dirty == null)
+			return;
+
+		for (ChunkData<?> chunkData : dirty)
+		{
+			ByteBuf buf = chunkData.writeChanges(Unpooled.buffer());
+			Chunk chunk = world.getChunkProvider().getLoadedChunk(chunkData.chunkX, chunkData.chunkZ);
+			if (chunk != null && buf.isReadable())
+				BlockDataMessage.sendBlockDataChanges(chunk, chunkData.handlerInfos.identifier, buf);
+		}
 	}
 
 	public static BlockDataHandler get()
@@ -396,75 +656,283 @@ public class BlockDataHandler
 	 */
 	public static class HandlerInfo<T>
 	{
+		final int id;
 		String identifier;
-		private Function<ByteBuf, T> fromBytes;
-		private Function<T, ByteBuf> toBytes;
+		private BlockDataCodec<T> codec;
 
-		public HandlerInfo(String identifier, Function<ByteBuf, T> fromBytes, Function<T, ByteBuf> toBytes)
+		public HandlerInfo(int id, String identifier, BlockDataCodec<T> codec)
 		{
+			this.id = id;
 			this.identifier = identifier;
-			this.fromBytes = fromBytes;
-			this.toBytes = toBytes;
+			this.codec = codec;
 		}
 	}
 
 	/**
-	 * Internal data storage for a specified {@link HandlerInfo}.
+	 * Internal data storage for a specified {@link HandlerInfo}.<br>
+	 * Entries are keyed by their chunk-local position packed in a <code>short</code> (<code>x | z << 4 | y << 8</code>) and kept sorted
+	 * in primitive arrays. Data from {@link BlockDataCodec.Packed} codecs is stored as <code>long</code> values instead of objects.<br>
+	 * The arrays are copied on write so that the data can be read from any thread without locking.
 	 *
 	 * @param <T> the generic type
 	 */
 	static class ChunkData<T>
 	{
-		private HandlerInfo<T> handlerInfos;
-		private HashMap<BlockPos, T> data = new HashMap<>();
-
-		public ChunkData(HandlerInfo<T> handlerInfo)
+		private final HandlerInfo<T> handlerInfos;
+		private final BlockDataCodec.Packed<T> packed;
+		private final int chunkX;
+		private final int chunkZ;
+		private volatile Entries entries;
+		/** Keys changed since the last time they were sent to the clients. Only used on the server thread. */
+		private TShortHashSet dirty;
+
+		@SuppressWarnings("unchecked")
+		public ChunkData(HandlerInfo<T> handlerInfo, int chunkX, int chunkZ)
 		{
 			this.handlerInfos = handlerInfo;
+			this.packed = handlerInfo.codec instanceof BlockDataCodec.Packed ? (BlockDataCodec.Packed<T>) handlerInfo.codec : null;
+			this.chunkX = chunkX;
+			this.chunkZ = chunkZ;
+			this.entries = new Entries(new short[0], packed != null ? new long[0] : null, packed != null ? null : new Object[0]);
 		}
 
 		public boolean hasData()
 		{
-			return data.size() > 0;
+			return entries.keys.length > 0;
 		}
 
+		@SuppressWarnings("unchecked")
 		public T getData(BlockPos pos)
 		{
-			return data.get(pos);
+			Entries e = entries;
+			int index = Arrays.binarySearch(e.keys, key(pos));
+			if (index < 0)
+				return null;
+			return packed != null ? packed.unpack(e.longs[index]) : (T) e.objects[index];
 		}
 
 		public void setData(BlockPos pos, T blockData)
 		{
+			setData(key(pos), blockData);
+		}
+
+		private synchronized void setData(short key, T blockData)
+		{
+			Entries e = entries;
+			int index = Arrays.binarySearch(e.keys, key);
 			if (blockData != null)
-				data.put(pos, blockData);
-			else
-				data.remove(pos);
+				entries = e.set(index, key, packed != null ? packed.pack(blockData) : 0, blockData);
+			else if (index >= 0)
+				entries = e.remove(index);
 		}
 
 		public ChunkData<T> fromBytes(ByteBuf buf)
 		{
+			int size = 0;
+			short[] keys = new short[16];
+			long[] longs = packed != null ? new long[16] : null;
+			Object[] objects = packed != null ? null : new Object[16];
+
 			while (buf.isReadable())
 			{
-				BlockPos pos = BlockPos.fromLong(buf.readLong());
-				ByteBuf b = buf.readBytes(buf.readInt());
-				T blockData = handlerInfos.fromBytes.apply(b);
-				data.put(pos, blockData);
+				short key = key(buf.readLong());
+				ByteBuf data = buf.readSlice(buf.readInt());
+				long l = packed != null ? packed.readPacked(data) : 0;
+				Object o = packed != null ? null : handlerInfos.codec.read(data);
+				if (packed == null && o == null)
+					continue;
+
+				//saved data is already sorted, so entries are usually appended
+				int index = size == 0 || keys[size - 1] < key ? -size - 1 : Arrays.binarySearch(keys, 0, size, key);
+				if (index < 0)
+				{
+					index = -index - 1;
+					if (size == keys.length)
+					{
+						keys = Arrays.copyOf(keys, size * 2);
+						longs = longs != null ? Arrays.copyOf(longs, size * 2) : null;
+						objects = objects != null ? Arrays.copyOf(objects, size * 2) : null;
+					}
+					System.arraycopy(keys, index, keys, index + 1, size - index);
+					if (longs != null)
+						System.arraycopy(longs, index, longs, index + 1, size - index);
+					else
+						System.arraycopy(objects, index, objects, index + 1, size - index);
+					keys[index] = key;
+					size++;
+				}
+
+				if (longs != null)
+					longs[index] = l;
+				else
+					objects[index] = o;
 			}
 
+			entries = new Entries(	Arrays.copyOf(keys, size),
+									longs != null ? Arrays.copyOf(longs, size) : null,
+									objects != null ? Arrays.copyOf(objects, size) : null);
 			return this;
 		}
 
+		public void markDirty(BlockPos pos)
+		{
+			if (dirty == null)
+				dirty = new TShortHashSet();
+			dirty.add(key(pos));
+		}
+
+		/**
+		 * Writes the entries changed since the last call and clears them.<br>
+		 * Removed entries are written with a size of -1.
+		 *
+		 * @param buf the buf
+		 * @return the byte buf
+		 */
+		@SuppressWarnings("unchecked")
+		public ByteBuf writeChanges(ByteBuf buf)
+		{
+			if (dirty == null)
+				return buf;
+
+			Entries e = entries;
+			for (TShortIterator it = dirty.iterator(); it.hasNext();)
+			{
+				short key = it.next();
+				buf.writeLong(pos(key));
+				int i = Arrays.binarySearch(e.keys, key);
+				if (i < 0)
+				{
+					buf.writeInt(-1);
+					continue;
+				}
+
+				int index = buf.writerIndex();
+				buf.writeInt(0);
+				if (packed != null)
+					packed.writePacked(buf, e.longs[i]);
+				else
+					handlerInfos.codec.write(buf, (T) e.objects[i]);
+				buf.setInt(index, buf.writerIndex() - index - 4);
+			}
+			dirty = null;
+			return buf;
+		}
+
+		/**
+		 * Applies the changes written by {@link #writeChanges(ByteBuf)}.
+		 *
+		 * @param buf the buf
+		 */
+		public void readChanges(ByteBuf buf)
+		{
+			while (buf.isReadable())
+			{
+				short key = key(buf.readLong());
+				int size = buf.readInt();
+				setData(key, size >= 0 ? handlerInfos.codec.read(buf.readSlice(size)) : null);
+			}
+		}
+
+		@SuppressWarnings("unchecked")
 		public ByteBuf toBytes(ByteBuf buf)
 		{
-			for (Entry<BlockPos, T> entry : data.entrySet())
+			Entries e = entries;
+			for (int i = 0; i < e.keys.length; i++)
 			{
-				ByteBuf b = handlerInfos.toBytes.apply(entry.getValue());
-				buf.writeLong(entry.getKey().toLong());
-				buf.writeInt(b.writerIndex());
-				buf.writeBytes(b);
+				buf.writeLong(pos(e.keys[i]));
+				//the size of the data is written once it's known
+				int index = buf.writerIndex();
+				buf.writeInt(0);
+				if (packed != null)
+					packed.writePacked(buf, e.longs[i]);
+				else
+					handlerInfos.codec.write(buf, (T) e.objects[i]);
+				buf.setInt(index, buf.writerIndex() - index - 4);
 			}
 			return buf;
 		}
 
+		/**
+		 * Gets the packed {@link BlockPos} for the key in this chunk.
+		 *
+		 * @param key the key
+		 * @return the long
+		 */
+		private long pos(short key)
+		{
+			int x = chunkX << 4 | key & 15;
+			int y = key >> 8 & 255;
+			int z = chunkZ << 4 | key >> 4 & 15;
+			return ((long) x & 0x3FFFFFFL) << 38 | ((long) y & 0xFFFL) << 26 | (long) z & 0x3FFFFFFL;
+		}
+
+		private static short key(BlockPos pos)
+		{
+			return (short) (pos.getX() & 15 | (pos.getZ() & 15) << 4 | (pos.getY() & 255) << 8);
+		}
+
+		private static short key(long pos)
+		{
+			return (short) ((int) (pos >> 38) & 15 | ((int) pos & 15) << 4 | ((int) (pos >> 26) & 255) << 8);
+		}
+	}
+
+	/**
+	 * Immutable snapshot of the entries of a {@link ChunkData}.<br>
+	 * Only one of <code>longs</code> and <code>objects</code> is used.
+	 */
+	private static class Entries
+	{
+		private final short[] keys;
+		private final long[] longs;
+		private final Object[] objects;
+
+		public Entries(short[] keys, long[] longs, Object[] objects)
+		{
+			this.keys = keys;
+			this.longs = longs;
+			this.objects = objects;
+		}
+
+		/**
+		 * Copies these {@link Entries} with the value set for the key.
+		 *
+		 * @param index the index of the key, or the insertion point as returned by {@link Arrays#binarySearch(short[], short)}
+		 * @param key the key
+		 * @param l the long value
+		 * @param o the object value
+		 * @return the entries
+		 */
+		public Entries set(int index, short key, long l, Object o)
+		{
+			if (index >= 0)
+			{
+				long[] ls = longs != null ? longs.clone() : null;
+				Object[] os = objects != null ? objects.clone() : null;
+				if (ls != null)
+					ls[index] = l;
+				else
+					os[index] = o;
+				return new Entries(keys, ls, os);
+			}
+
+			index = -index - 1;
+			return new Entries(	ArrayUtils.add(keys, index, key),
+								longs != null ? ArrayUtils.add(longs, index, l) : null,
+								objects != null ? ArrayUtils.add(objects, index, o) : null);
+		}
+
+		/**
+		 * Copies these {@link Entries} without the value at the index.
+		 *
+		 * @param index the index
+		 * @return the entries
+		 */
+		public Entries remove(int index)
+		{
+			return new Entries(	ArrayUtils.remove(keys, index),
+								longs != null ? ArrayUtils.remove(longs, index) : null,
+								objects != null ? ArrayUtils.remove(objects, index) : null);
+		}
 	}
-}
\ No newline at end of file
+}
@@ -51,7 +51,10 @@ public class BlockDataMessage implements IMalisisMessageHandler<Packet, IMessage
 	@Override
 	public void process(Packet message, MessageContext ctx)
 	{
-		BlockDataHandler.setBlockData(message.x, message.z, message.identifier, message.data);
+		if (message.changes)
+			BlockDataHandler.updateBlockData(message.x, message.z, message.identifier, message.data);
+		else
+			BlockDataHandler.setBlockData(message.x, message.z, message.identifier, message.data);
 	}
 
 	/**
@@ -79,21 +82,40 @@ public class BlockDataMessage implements IMalisisMessageHandler<Packet, IMessage
 		MalisisCore.network.sendToPlayersWatchingChunk(new Packet(chunk, identifer, data), chunk);
 	}
 
+	/**
+	 * Sends the changes made to the data to all the players currently watching the specified {@link Chunk}.
+	 *
+	 * @param chunk the chunk
+	 * @param identifier the identifier
+	 * @param data the changes
+	 */
+	public static void sendBlockDataChanges(Chunk chunk, String identifier, ByteBuf data)
+	{
+		MalisisCore.network.sendToPlayersWatchingChunk(new Packet(chunk, identifier, data, true), chunk);
+	}
+
 	public static class Packet implements IMessage
 	{
 		private int x;
 		private int z;
 		private String identifier;
+		private boolean changes;
 		private ByteBuf data;
 
 		public Packet()
 		{}
 
 		public Packet(Chunk chunk, String identifier, ByteBuf data)
+		{
+			this(chunk, identifier, data, false);
+		}
+
+		public Packet(Chunk chunk, String identifier, ByteBuf data, boolean changes)
 		{
 			this.x = chunk.x;
 			this.z = chunk.z;
 			this.identifier = identifier;
+			this.changes = changes;
 			this.data = data;
 		}
 
@@ -103,6 +125,7 @@ public class BlockDataMessage implements IMalisisMessageHandler<Packet, IMessage
 			x = buf.readInt();
 			z = buf.readInt();
 			identifier = ByteBufUtils.readUTF8String(buf);
+			changes = buf.readBoolean();
 			data = buf.readBytes(buf.readableBytes());
 		}
 
@@ -112,6 +135,7 @@ public class BlockDataMessage implements IMalisisMessageHandler<Packet, IMessage
 			buf.writeInt(x);
 			buf.writeInt(z);
 			ByteBufUtils.writeUTF8String(buf, identifier);
+			buf.writeBoolean(changes);
 			buf.writeBytes(data);
 		}
 	}
@@ -69,7 +69,7 @@ public class CachedData<T> implements ICachedData<T>
 	 */
 	public CachedData(Supplier<T> getter)
 	{
-		this(getter, Objects::equals);
+		this(getter, (d1, d2) -> !Objects.equals(d1, d2));
 	}
 
 	/**
@@ -155,6 +155,17 @@ public interface ICallback<T>
 			return priority;
 		}
 
+		/**
+		 * Gets the {@link ICallbackPredicate} of this {@link ICallback.CallbackOption}.<br>
+		 * A {@code null} predicate always applies.
+		 *
+		 * @return the predicate
+		 */
+		public P getPredicate()
+		{
+			return predicate;
+		}
+
 		/**
 		 * Returns the result of the {@link ICallbackPredicate} held by this {@link ICallback.CallbackOption}.
 		 *
@@ -24,18 +24,22 @@
 
 package net.malisis.core.util.chunkblock;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.lang3.ArrayUtils;
 
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.Sets;
 
+import gnu.trove.TCollections;
+import gnu.trove.map.hash.TLongObjectHashMap;
 import gnu.trove.procedure.TLongProcedure;
-import io.netty.buffer.ByteBuf;
-import io.netty.buffer.Unpooled;
+import gnu.trove.set.TLongSet;
+import gnu.trove.set.hash.TLongHashSet;
 import net.malisis.core.MalisisCore;
 import net.malisis.core.block.IComponent;
 import net.malisis.core.registry.AutoLoad;
@@ -43,7 +47,6 @@ import net.malisis.core.registry.MalisisRegistry;
 import net.malisis.core.util.MBlockPos;
 import net.malisis.core.util.MBlockState;
 import net.malisis.core.util.Utils;
-import net.malisis.core.util.WeakNested;
 import net.malisis.core.util.callback.CallbackResult;
 import net.malisis.core.util.callback.ICallback.CallbackOption;
 import net.malisis.core.util.callback.ICallback.Priority;
@@ -51,11 +54,14 @@ import net.minecraft.block.state.IBlockState;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.util.math.AxisAlignedBB;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
 import net.minecraft.world.World;
 import net.minecraft.world.chunk.Chunk;
 import net.minecraftforge.common.MinecraftForge;
 import net.minecraftforge.event.world.ChunkDataEvent;
+import net.minecraftforge.event.world.ChunkEvent;
 import net.minecraftforge.event.world.ChunkWatchEvent;
+import net.minecraftforge.event.world.WorldEvent;
 import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
 
 /**
@@ -69,52 +75,193 @@ import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
 public class ChunkBlockHandler
 {
 	private static ChunkBlockHandler instance = new ChunkBlockHandler();
-
-	private WeakNested.Set<Chunk, BlockPos> serverChunks = new WeakNested.Set<>(Sets::newHashSet);
-	private WeakNested.Set<Chunk, BlockPos> clientChunks = new WeakNested.Set<>(Sets::newHashSet);
-
-	//	private Map<Chunk, List<BlockPos>> serverChunks = new WeakHashMap<>();
-	//	private Map<Chunk, List<BlockPos>> clientChunks = new WeakHashMap<>();
+	/** Empty set returned for chunks without coordinates. */
+	private static final TLongSet NO_COORDS = TCollections.unmodifiableSet(new TLongHashSet(0));
+
+	/** Coordinates stored per packed chunk position, per world. */
+	private Map<World, TLongObjectHashMap<TLongHashSet>> serverWorlds = new WeakHashMap<>();
+	private Map<World, TLongObjectHashMap<TLongHashSet>> clientWorlds = new WeakHashMap<>();
+	/** Spatial index of the listeners, per world. */
+	private Map<World, ChunkBlockIndex> serverIndexes = new WeakHashMap<>();
+	private Map<World, ChunkBlockIndex> clientIndexes = new WeakHashMap<>();
+	/** Number of iterations over coordinates sets in progress. While not zero, the sets are copied on write. */
+	private final AtomicInteger iterations = new AtomicInteger();
 
 	public ChunkBlockHandler()
 	{
 		MinecraftForge.EVENT_BUS.register(this);
-		MalisisRegistry.onPreSetBlock(this::handleChunkBlock, CallbackOption.of(Priority.LOWEST));
+		MalisisRegistry.onPreSetBlock(	this::handleChunkBlock,
+										CallbackOption.of(Priority.LOWEST),
+										b -> IComponent.getComponent(IChunkBlock.class, b) != null);
+		MalisisRegistry.onPostSetBlock(	this::updateListener,
+										CallbackOption.of(Priority.HIGHEST),
+										b -> IComponent.getComponent(IChunkBlock.class, b) != null);
 	}
 
-	public WeakNested.Set<Chunk, BlockPos> chunks(Chunk chunk)
+	/**
+	 * Gets the coordinates storage for the {@link World}.
+	 *
+	 * @param world the world
+	 * @param create whether to create the storage if missing
+	 * @return the storage
+	 */
+	private TLongObjectHashMap<TLongHashSet> chunks(World world, boolean create)
 	{
-		return chunk.getWorld().isRemote ? clientChunks : serverChunks;
+		Map<World, TLongObjectHashMap<TLongHashSet>> worlds = world.isRemote ? clientWorlds : serverWorlds;
+		TLongObjectHashMap<TLongHashSet> chunks = worlds.get(world);
+		if (chunks == null && create)
+		{
+			chunks = new TLongObjectHashMap<>();
+			worlds.put(world, chunks);
+		}
+		return chunks;
 	}
 
 	/**
-	 * Gets all the coordinates stored in the chunk.<br>
-	 * If no coordinates are stored for the chunk, saves the newList for it.
+	 * Gets the {@link ChunkBlockIndex} for the {@link World}.
+	 *
+	 * @param world the world
+	 * @return the index
+	 */
+	public ChunkBlockIndex getIndex(World world)
+	{
+		Map<World, ChunkBlockIndex> indexes = world.isRemote ? clientIndexes : serverIndexes;
+		ChunkBlockIndex index = indexes.get(world);
+		if (index == null)
+		{
+			index = new ChunkBlockIndex();
+			indexes.put(world, index);
+		}
+		return index;
+	}
+
+	/**
+	 * Adds to the {@link ChunkBlockIndex} the stored coordinates located inside the {@link Chunk}.<br>
+	 * The range of each listener is read from the {@link IChunkBlock} of the chunk's block at the coordinate.
 	 *
 	 * @param chunk the chunk
-	 * @return the coords
 	 */
-	//	private Optional<List<BlockPos>> getCoords(Chunk chunk, List<BlockPos> newList)
-	//	{
-	//		Optional<List<BlockPos>> o = getCoords(chunk);
-	//		if (o.isPresent())
-	//			return o;
-	//
-	//		(chunk.getWorld().isRemote ? clientChunks : serverChunks).put(chunk, newList);
-	//		return Optional.of(newList);
-	//	}
+	private void indexChunk(Chunk chunk)
+	{
+		ChunkBlockIndex index = getIndex(chunk.getWorld());
+		getCoords(chunk).forEach(coord -> {
+			BlockPos pos = BlockPos.fromLong(coord);
+			if (pos.getX() >> 4 != chunk.x || pos.getZ() >> 4 != chunk.z)
+				return true;
+			index.add(pos, chunk.getBlockState(pos));
+			return true;
+		});
+	}
+
+	/**
+	 * Gets the coordinates set stored for the {@link Chunk}.
+	 *
+	 * @param chunk the chunk
+	 * @param create whether to create the set if missing
+	 * @return the set
+	 */
+	private TLongHashSet coords(Chunk chunk, boolean create)
+	{
+		TLongObjectHashMap<TLongHashSet> chunks = chunks(chunk.getWorld(), create);
+		if (chunks == null)
+			return null;
+
+		long key = ChunkPos.asLong(chunk.x, chunk.z);
+		TLongHashSet coords = chunks.get(key);
+		if (coords == null && create)
+		{
+			coords = new TLongHashSet(8);
+			chunks.put(key, coords);
+		}
+		return coords;
+	}
+
+	/**
+	 * Gets the coordinates set stored for the {@link Chunk}, to be modified.<br>
+	 * If coordinates are being iterated, the set is replaced by a copy, so that the iterations are not affected by the modification.
+	 *
+	 * @param chunk the chunk
+	 * @param create whether to create the set if missing
+	 * @return the set
+	 */
+	private TLongHashSet editCoords(Chunk chunk, boolean create)
+	{
+		TLongHashSet coords = coords(chunk, create);
+		if (coords == null || iterations.get() == 0)
+			return coords;
+
+		coords = new TLongHashSet(coords);
+		chunks(chunk.getWorld(), false).put(ChunkPos.asLong(chunk.x, chunk.z), coords);
+		return coords;
+	}
 
 	/**
-	 * Gets all the coordinates stored in the chunk.
+	 * Marks the start of an iteration over a coordinates set returned by {@link #getCoords(Chunk)}.<br>
+	 * Until {@link #endIteration()} is called, the sets are copied when modified so that the iterated set stays unchanged.
+	 */
+	void startIteration()
+	{
+		iterations.incrementAndGet();
+	}
+
+	/**
+	 * Marks the end of an iteration started with {@link #startIteration()}.
+	 */
+	void endIteration()
+	{
+		iterations.decrementAndGet();
+	}
+
+	/**
+	 * Gets all the coordinates stored in the chunk, packed with {@link BlockPos#toLong()}.<br>
+	 * The returned set should not be modified, and should be iterated between {@link #startIteration()} and {@link #endIteration()} if
+	 * the coordinates can change during the iteration.
 	 *
 	 * @param chunk the chunk
 	 * @return the coords
 	 */
-	//	public Optional<List<BlockPos>> getCoords(Chunk chunk)
-	//	{
-	//		Map<Chunk, List<BlockPos>> chunks = chunk.getWorld().isRemote ? clientChunks : serverChunks;
-	//		return Optional.ofNullable(chunks.get(chunk));
-	//	}
+	public TLongSet getCoords(Chunk chunk)
+	{
+		TLongHashSet coords = coords(chunk, false);
+		return coords != null ? coords : NO_COORDS;
+	}
+
+	/**
+	 * Checks whether coordinates are stored for the {@link Chunk}.
+	 *
+	 * @param chunk the chunk
+	 * @return true, if successful
+	 */
+	public boolean hasCoords(Chunk chunk)
+	{
+		return !getCoords(chunk).isEmpty();
+	}
+
+	/**
+	 * Executes the {@link ChunkProcedure} for every coordinate stored in the {@link Chunk}.
+	 *
+	 * @param chunk the chunk
+	 * @param procedure the procedure
+	 */
+	public void forEachCoord(Chunk chunk, ChunkProcedure procedure)
+	{
+		TLongSet coords = getCoords(chunk);
+		if (coords.isEmpty())
+			return;
+
+		procedure.set(chunk);
+		//the procedure may remove coordinates, the set is then copied on write
+		startIteration();
+		try
+		{
+			coords.forEach(procedure);
+		}
+		finally
+		{
+			endIteration();
+			procedure.clean();
+		}
+	}
 
 	/**
 	 * Stores the coordinate in the chunk data if newState blocks has a {@link IChunkBlock} component.<br>
@@ -139,26 +286,36 @@ public class ChunkBlockHandler
 	}
 
 	/**
-	 * Adds a coordinate for the {@link Chunk Chunks} around {@link BlockPos}.
+	 * Updates the {@link ChunkBlockIndex} once the block is actually set, so the {@link ChunkBlockIndex.Listener} holds the placed
+	 * {@link IBlockState} and its components.
 	 *
-	 * @param world the world
+	 * @param chunk the chunk
 	 * @param pos the pos
-	 * @param size the size
+	 * @param oldState the old state
+	 * @param newState the new state
+	 * @return the callback result
 	 */
-	private void addCoord(World world, BlockPos pos, int size)
+	private CallbackResult<Void> updateListener(Chunk chunk, BlockPos pos, IBlockState oldState, IBlockState newState)
 	{
-		getAffectedChunks(world, pos.getX(), pos.getZ(), size).forEach(c -> addCoord(c, pos));
+		if (IComponent.getComponent(IChunkBlock.class, newState.getBlock()) != null)
+			getIndex(chunk.getWorld()).add(pos, newState);
+		else
+			getIndex(chunk.getWorld()).remove(pos.toLong());
+		return CallbackResult.noResult();
 	}
 
 	/**
-	 * Adds a coordinate for the specified {@link Chunk}.
+	 * Adds a coordinate for the {@link Chunk Chunks} around {@link BlockPos}.
 	 *
-	 * @param chunk the chunk
+	 * @param world the world
 	 * @param pos the pos
+	 * @param size the size
 	 */
-	private void addCoord(Chunk chunk, BlockPos pos)
+	private void addCoord(World world, BlockPos pos, int size)
 	{
-		chunks(chunk).add(chunk, pos);
+		long coord = pos.toLong();
+		for (Chunk chunk : getAffectedChunks(world, pos.getX(), pos.getZ(), size))
+			editCoords(chunk, true).add(coord);
 	}
 
 	/**
@@ -170,7 +327,13 @@ public class ChunkBlockHandler
 	 */
 	private void removeCoord(World world, BlockPos pos, int size)
 	{
-		getAffectedChunks(world, pos.getX(), pos.getZ(), size).forEach(c -> removeCoord(c, pos));
+		long coord = pos.toLong();
+		for (Chunk chunk : getAffectedChunks(world, pos.getX(), pos.getZ(), size))
+		{
+			TLongHashSet coords = editCoords(chunk, false);
+			if (coords != null)
+				coords.remove(coord);
+		}
 	}
 
 	/**
@@ -181,7 +344,36 @@ public class ChunkBlockHandler
 	 */
 	private void removeCoord(Chunk chunk, BlockPos pos)
 	{
-		chunks(chunk).remove(chunk, pos);
+		TLongHashSet coords = editCoords(chunk, false);
+		if (coords != null)
+			coords.remove(pos.toLong());
+		if (pos.getX() >> 4 == chunk.x && pos.getZ() >> 4 == chunk.z)
+			getIndex(chunk.getWorld()).remove(pos.toLong());
+	}
+
+	/**
+	 * Removes all the coordinates stored for the {@link Chunk}.
+	 *
+	 * @param chunk the chunk
+	 */
+	private void clearCoords(Chunk chunk)
+	{
+		TLongObjectHashMap<TLongHashSet> chunks = chunks(chunk.getWorld(), false);
+		if (chunks == null)
+			return;
+
+		TLongHashSet coords = chunks.remove(ChunkPos.asLong(chunk.x, chunk.z));
+		if (coords == null)
+			return;
+
+		//remove the listeners located in the chunk from the index
+		ChunkBlockIndex index = getIndex(chunk.getWorld());
+		coords.forEach(coord -> {
+			BlockPos pos = BlockPos.fromLong(coord);
+			if (pos.getX() >> 4 == chunk.x && pos.getZ() >> 4 == chunk.z)
+				index.remove(coord);
+			return true;
+		});
 	}
 
 	//#end updateCoordinates
@@ -197,21 +389,55 @@ public class ChunkBlockHandler
 	public void onDataLoad(ChunkDataEvent.Load event)
 	{
 		if (event.getData().hasKey("chunkNotifier"))
-			chunks(event.getChunk()).addAll(event.getChunk(), readLongArray(event.getData()));
+		{
+			readLongArray(event.getData(), editCoords(event.getChunk(), true));
+			indexChunk(event.getChunk());
+		}
 	}
 
 	/**
 	 * Called when a {@link Chunk} is saved on the server.<br>
-	 * Writes the coordinates to be saved in the Chunk's NBT.
+	 * Writes the coordinates to be saved in the Chunk's NBT.<br>
+	 * If the chunk is being unloaded, the coordinates are discarded afterwards.
 	 *
 	 * @param event the event
 	 */
 	@SubscribeEvent
 	public void onDataSave(ChunkDataEvent.Save event)
 	{
-		Set<BlockPos> coords = chunks(event.getChunk()).get(event.getChunk());
+		TLongSet coords = getCoords(event.getChunk());
 		if (!coords.isEmpty())
 			writeLongArray(event.getData(), coords);
+
+		//server chunks are saved after the unload event
+		if (event.getChunk().unloadQueued)
+			clearCoords(event.getChunk());
+	}
+
+	/**
+	 * Called when a {@link Chunk} is unloaded.<br>
+	 * Discards the coordinates of client chunks. Server chunks are handled in {@link #onDataSave(ChunkDataEvent.Save)}.
+	 *
+	 * @param event the event
+	 */
+	@SubscribeEvent
+	public void onChunkUnload(ChunkEvent.Unload event)
+	{
+		if (event.getWorld().isRemote)
+			clearCoords(event.getChunk());
+	}
+
+	/**
+	 * Called when a {@link World} is unloaded.<br>
+	 * Discards all the coordinates for that world.
+	 *
+	 * @param event the event
+	 */
+	@SubscribeEvent
+	public void onWorldUnload(WorldEvent.Unload event)
+	{
+		(event.getWorld().isRemote ? clientWorlds : serverWorlds).remove(event.getWorld());
+		(event.getWorld().isRemote ? clientIndexes : serverIndexes).remove(event.getWorld());
 	}
 
 	/**
@@ -220,15 +446,13 @@ public class ChunkBlockHandler
 	 *
 	 * @author Ivorius
 	 * @param compound the compound
-	 * @return the long[]
+	 * @param coords the set to fill
 	 */
-	private Set<BlockPos> readLongArray(NBTTagCompound compound)
+	private void readLongArray(NBTTagCompound compound, TLongSet coords)
 	{
-		ByteBuf bytes = Unpooled.copiedBuffer(compound.getByteArray("chunkNotifier"));
-		Set<BlockPos> set = Sets.newHashSet();
-		for (int i = 0; i < bytes.capacity() / 8; i++)
-			set.add(BlockPos.fromLong(bytes.readLong()));
-		return set;
+		ByteBuffer bytes = ByteBuffer.wrap(compound.getByteArray("chunkNotifier"));
+		while (bytes.remaining() >= 8)
+			coords.add(bytes.getLong());
 	}
 
 	/**
@@ -237,13 +461,17 @@ public class ChunkBlockHandler
 	 *
 	 * @author Ivorius
 	 * @param compound the compound
-	 * @param longs the longs
+	 * @param coords the coords
 	 */
-	private void writeLongArray(NBTTagCompound compound, Set<BlockPos> set)
+	private void writeLongArray(NBTTagCompound compound, TLongSet coords)
 	{
-		ByteBuf bytes = Unpooled.buffer(set.size() * 8);
-		set.forEach(p -> bytes.writeLong(p.toLong()));
-		compound.setByteArray("chunkNotifier", bytes.array());
+		byte[] array = new byte[coords.size() * 8];
+		ByteBuffer bytes = ByteBuffer.wrap(array);
+		coords.forEach(coord -> {
+			bytes.putLong(coord);
+			return true;
+		});
+		compound.setByteArray("chunkNotifier", array);
 	}
 
 	/**
@@ -256,7 +484,7 @@ public class ChunkBlockHandler
 	public void onChunkWatched(ChunkWatchEvent.Watch event)
 	{
 		Chunk chunk = event.getPlayer().world.getChunkFromChunkCoords(event.getChunk().x, event.getChunk().z);
-		Set<BlockPos> coords = chunks(chunk).get(chunk);
+		TLongSet coords = getCoords(chunk);
 		if (!coords.isEmpty())
 			ChunkBlockMessage.sendCoords(chunk, coords, event.getPlayer());
 	}
@@ -269,10 +497,11 @@ public class ChunkBlockHandler
 	 * @param chunkZ the chunk z
 	 * @param coords the coords
 	 */
-	public void setCoords(int chunkX, int chunkZ, Set<BlockPos> coords)
+	public void setCoords(int chunkX, int chunkZ, long[] coords)
 	{
 		Chunk chunk = Utils.getClientWorld().getChunkFromChunkCoords(chunkX, chunkZ);
-		chunks(chunk).addAll(chunk, coords);
+		coords(chunk, true).addAll(coords);
+		indexChunk(chunk);
 	}
 
 	//#end Events
@@ -364,7 +593,7 @@ public class ChunkBlockHandler
 		{
 			state = new MBlockState(world, coord);
 
-			if (!(state.getBlock() instanceof IChunkBlock))
+			if (IComponent.getComponent(IChunkBlock.class, state.getBlock()) == null)
 			{
 				MalisisCore.log.info(	"[ChunkNotificationHandler]  Removing invalid {} coordinate : {} in chunk {},{}",
 										world.isRemote ? "client" : "server",
@@ -0,0 +1,308 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014 Ordinastie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.malisis.core.util.chunkblock;
+
+import java.util.List;
+
+import org.apache.commons.lang3.ArrayUtils;
+
+import gnu.trove.map.hash.TLongObjectHashMap;
+import net.malisis.core.block.IComponent;
+import net.malisis.core.util.chunkcollision.IChunkCollidable;
+import net.malisis.core.util.chunklistener.IBlockListener;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.util.math.AxisAlignedBB;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+
+/**
+ * The ChunkBlockIndex is a spatial index of the {@link IChunkBlock} listeners of a world.<br>
+ * Each listener covers {@link IChunkBlock#blockRange()} blocks horizontally around its position and the full height of the world, and
+ * is stored in every 16x16 column that area intersects. Queries only look at the columns overlapping the requested position or
+ * {@link AxisAlignedBB}, so their cost depends on the actual overlaps rather than the number of listeners in the chunks.<br>
+ * Column arrays are copied on write so they can be safely iterated while listeners are added or removed.
+ *
+ * @author Ordinastie
+ */
+public class ChunkBlockIndex
+{
+	private static final Listener[] NO_LISTENERS = new Listener[0];
+
+	/** Listeners per packed position. */
+	private final TLongObjectHashMap<Listener> listeners = new TLongObjectHashMap<>();
+	/** Listeners per packed column position. */
+	private final TLongObjectHashMap<Listener[]> columns = new TLongObjectHashMap<>();
+
+	/**
+	 * Checks whether this {@link ChunkBlockIndex} holds no listener.
+	 *
+	 * @return true, if empty
+	 */
+	public boolean isEmpty()
+	{
+		return listeners.isEmpty();
+	}
+
+	/**
+	 * Gets the {@link Listener} stored at the packed position.
+	 *
+	 * @param coord the coord
+	 * @return the listener
+	 */
+	public Listener get(long coord)
+	{
+		return listeners.get(coord);
+	}
+
+	/**
+	 * Adds a listener at the {@link BlockPos} for the {@link IBlockState}.<br>
+	 * Replaces the listener already stored at that position, if any. Nothing is added if the block has no {@link IChunkBlock} component.
+	 *
+	 * @param pos the pos
+	 * @param state the state
+	 */
+	public void add(BlockPos pos, IBlockState state)
+	{
+		remove(pos.toLong());
+		IChunkBlock chunkBlock = IComponent.getComponent(IChunkBlock.class, state.getBlock());
+		if (chunkBlock == null)
+			return;
+
+		Listener listener = new Listener(pos.toImmutable(), state, chunkBlock);
+		listeners.put(listener.coord, listener);
+
+		for (int cx = listener.minX >> 4; cx <= listener.maxX >> 4; cx++)
+			for (int cz = listener.minZ >> 4; cz <= listener.maxZ >> 4; cz++)
+			{
+				long key = ChunkPos.asLong(cx, cz);
+				Listener[] array = columns.get(key);
+				columns.put(key, array == null ? new Listener[] { listener } : ArrayUtils.add(array, listener));
+			}
+	}
+
+	/**
+	 * Removes the listener at the packed position.
+	 *
+	 * @param coord the coord
+	 */
+	public void remove(long coord)
+	{
+		Listener listener = listeners.remove(coord);
+		if (listener == null)
+			return;
+
+		for (int cx = listener.minX >> 4; cx <= listener.maxX >> 4; cx++)
+			for (int cz = listener.minZ >> 4; cz <= listener.maxZ >> 4; cz++)
+			{
+				long key = ChunkPos.asLong(cx, cz);
+				Listener[] array = columns.get(key);
+				if (array == null)
+					continue;
+				array = ArrayUtils.removeElement(array, listener);
+				if (array.length == 0)
+					columns.remove(key);
+				else
+					columns.put(key, array);
+			}
+	}
+
+	/**
+	 * Gets the listeners stored in the column containing the {@link BlockPos}.<br>
+	 * The listeners returned may not contain the position, {@link Listener#contains(BlockPos)} should be checked.<br>
+	 * The returned array must not be modified.
+	 *
+	 * @param pos the pos
+	 * @return the listeners
+	 */
+	public Listener[] getListeners(BlockPos pos)
+	{
+		Listener[] array = columns.get(ChunkPos.asLong(pos.getX() >> 4, pos.getZ() >> 4));
+		return array != null ? array : NO_LISTENERS;
+	}
+
+	/**
+	 * Adds to the list the listeners whose range intersects the {@link AxisAlignedBB}.<br>
+	 * Listeners cover the full height of the world, so only the horizontal extent of the {@link AxisAlignedBB} is checked.<br>
+	 * Each listener is added once.
+	 *
+	 * @param aabb the aabb
+	 * @param list the list
+	 */
+	public void getListeners(AxisAlignedBB aabb, List<Listener> list)
+	{
+		int minX = (int) Math.floor(aabb.minX);
+		int minZ = (int) Math.floor(aabb.minZ);
+		int maxX = (int) Math.ceil(aabb.maxX) - 1;
+		int maxZ = (int) Math.ceil(aabb.maxZ) - 1;
+
+		for (int cx = minX >> 4; cx <= maxX >> 4; cx++)
+			for (int cz = minZ >> 4; cz <= maxZ >> 4; cz++)
+			{
+				Listener[] array = columns.get(ChunkPos.asLong(cx, cz));
+				if (array == null)
+					continue;
+
+				for (Listener listener : array)
+				{
+					if (!listener.intersects(minX, minZ, maxX, maxZ))
+						continue;
+					//only add the listener from the column holding the lowest corner of the intersection
+					if (Math.max(minX, listener.minX) >> 4 == cx && Math.max(minZ, listener.minZ) >> 4 == cz)
+						list.add(listener);
+				}
+			}
+	}
+
+	/**
+	 * A listener stored in the {@link ChunkBlockIndex}.<br>
+	 * Holds the {@link IBlockState} and the components of the block at the position, resolved when the listener is added, so that the
+	 * callbacks don't need to query the world.
+	 */
+	public static class Listener
+	{
+		private final BlockPos pos;
+		private final long coord;
+		private final int range;
+		private final int minX, minZ, maxX, maxZ;
+		private final IBlockState state;
+		private final IChunkBlock chunkBlock;
+		private final IChunkCollidable collidable;
+		private final IBlockListener.Pre preListener;
+		private final IBlockListener.Post postListener;
+
+		public Listener(BlockPos pos, IBlockState state, IChunkBlock chunkBlock)
+		{
+			this.pos = pos;
+			this.coord = pos.toLong();
+			this.state = state;
+			this.chunkBlock = chunkBlock;
+			this.collidable = IComponent.getComponent(IChunkCollidable.class, state.getBlock());
+			this.preListener = IComponent.getComponent(IBlockListener.Pre.class, state.getBlock());
+			this.postListener = IComponent.getComponent(IBlockListener.Post.class, state.getBlock());
+			this.range = chunkBlock.blockRange();
+			//the range only applies horizontally, the listener covers the full height
+			this.minX = pos.getX() - range;
+			this.minZ = pos.getZ() - range;
+			this.maxX = pos.getX() + range;
+			this.maxZ = pos.getZ() + range;
+		}
+
+		/**
+		 * Gets the position of this {@link Listener}.
+		 *
+		 * @return the pos
+		 */
+		public BlockPos getPos()
+		{
+			return pos;
+		}
+
+		/**
+		 * Gets the packed position of this {@link Listener}.
+		 *
+		 * @return the coord
+		 */
+		public long getCoord()
+		{
+			return coord;
+		}
+
+		/**
+		 * Gets the range of this {@link Listener}.
+		 *
+		 * @return the range
+		 */
+		public int getRange()
+		{
+			return range;
+		}
+
+		/**
+		 * Gets the {@link IBlockState} of this {@link Listener}.
+		 *
+		 * @return the state
+		 */
+		public IBlockState getState()
+		{
+			return state;
+		}
+
+		/**
+		 * Gets the {@link IChunkBlock} component of this {@link Listener}.
+		 *
+		 * @return the chunk block
+		 */
+		public IChunkBlock getChunkBlock()
+		{
+			return chunkBlock;
+		}
+
+		/**
+		 * Gets the {@link IChunkCollidable} component of this {@link Listener}, if any.
+		 *
+		 * @return the collidable
+		 */
+		public IChunkCollidable getCollidable()
+		{
+			return collidable;
+		}
+
+		/**
+		 * Gets the {@link IBlockListener.Pre} component of this {@link Listener}, if any.
+		 *
+		 * @return the pre listener
+		 */
+		public IBlockListener.Pre getPreListener()
+		{
+			return preListener;
+		}
+
+		/**
+		 * Gets the {@link IBlockListener.Post} component of this {@link Listener}, if any.
+		 *
+		 * @return the post listener
+		 */
+		public IBlockListener.Post getPostListener()
+		{
+			return postListener;
+		}
+
+		/**
+		 * Checks whether the {@link BlockPos} is inside the horizontal range of this {@link Listener}.
+		 *
+		 * @param p the p
+		 * @return true, if successful
+		 */
+		public boolean contains(BlockPos p)
+		{
+			return p.getX() >= minX && p.getX() <= maxX && p.getZ() >= minZ && p.getZ() <= maxZ;
+		}
+
+		private boolean intersects(int x1, int z1, int x2, int z2)
+		{
+			return x1 <= maxX && x2 >= minX && z1 <= maxZ && z2 >= minZ;
+		}
+	}
+}
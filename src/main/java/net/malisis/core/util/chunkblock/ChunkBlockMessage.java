@@ -24,16 +24,12 @@
 
 package net.malisis.core.util.chunkblock;
 
-import java.util.Set;
-
-import com.google.common.collect.Sets;
-
+import gnu.trove.set.TLongSet;
 import io.netty.buffer.ByteBuf;
 import net.malisis.core.MalisisCore;
 import net.malisis.core.network.IMalisisMessageHandler;
 import net.malisis.core.registry.AutoLoad;
 import net.minecraft.entity.player.EntityPlayerMP;
-import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.chunk.Chunk;
 import net.minecraftforge.fml.common.network.simpleimpl.IMessage;
 import net.minecraftforge.fml.common.network.simpleimpl.MessageContext;
@@ -57,7 +53,7 @@ public class ChunkBlockMessage implements IMalisisMessageHandler<ChunkBlockMessa
 		ChunkBlockHandler.get().setCoords(message.x, message.z, message.coords);
 	}
 
-	public static void sendCoords(Chunk chunk, Set<BlockPos> coords, EntityPlayerMP player)
+	public static void sendCoords(Chunk chunk, TLongSet coords, EntityPlayerMP player)
 	{
 		MalisisCore.network.sendTo(new Packet(chunk, coords), player);
 	}
@@ -66,16 +62,16 @@ public class ChunkBlockMessage implements IMalisisMessageHandler<ChunkBlockMessa
 	{
 		private int x;
 		private int z;
-		private Set<BlockPos> coords;
+		private long[] coords;
 
 		public Packet()
 		{}
 
-		public Packet(Chunk chunk, Set<BlockPos> coords)
+		public Packet(Chunk chunk, TLongSet coords)
 		{
 			this.x = chunk.x;
 			this.z = chunk.z;
-			this.coords = coords;
+			this.coords = coords.toArray();
 		}
 
 		@Override
@@ -83,10 +79,9 @@ public class ChunkBlockMessage implements IMalisisMessageHandler<ChunkBlockMessa
 		{
 			x = buf.readInt();
 			z = buf.readInt();
-			coords = Sets.newHashSet();
-			int count = buf.readInt();
-			for (int i = 0; i < count; i++)
-				coords.add(BlockPos.fromLong(buf.readLong()));
+			coords = new long[buf.readInt()];
+			for (int i = 0; i < coords.length; i++)
+				coords[i] = buf.readLong();
 		}
 
 		@Override
@@ -94,8 +89,9 @@ public class ChunkBlockMessage implements IMalisisMessageHandler<ChunkBlockMessa
 		{
 			buf.writeInt(x);
 			buf.writeInt(z);
-			buf.writeInt(coords.size());
-			coords.forEach(p -> buf.writeLong(p.toLong()));
+			buf.writeInt(coords.length);
+			for (long coord : coords)
+				buf.writeLong(coord);
 		}
 	}
 }
@@ -24,20 +24,31 @@
 
 package net.malisis.core.util.chunkblock;
 
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.List;
 
+import org.apache.commons.lang3.tuple.Pair;
+
+import gnu.trove.iterator.TLongIterator;
+import gnu.trove.set.TLongSet;
 import net.malisis.core.util.callback.CallbackRegistry;
 import net.malisis.core.util.callback.CallbackResult;
 import net.malisis.core.util.callback.ICallback;
+import net.malisis.core.util.callback.ICallback.CallbackOption;
 import net.malisis.core.util.callback.ICallback.ICallbackPredicate;
+import net.malisis.core.util.callback.ICallback.Priority;
+import net.malisis.core.util.chunkblock.ChunkBlockIndex.Listener;
 import net.malisis.core.util.chunkblock.ChunkCallbackRegistry.IChunkCallback;
 import net.malisis.core.util.chunkblock.ChunkCallbackRegistry.IChunkCallbackPredicate;
+import net.minecraft.util.math.AxisAlignedBB;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
 import net.minecraft.world.chunk.Chunk;
 
 /**
  * The {@link ChunkCallbackRegistry} handles {@link IChunkCallback IChunkCallbacks}.<br>
- * {@code IChunkCallbacks} are called for every {@link IChunkBlock} stored in the chunk data.
+ * {@code IChunkCallbacks} are called for every {@link IChunkBlock} stored in the chunk data, or for the {@code IChunkBlock} whose range
+ * intersects a position or an {@link AxisAlignedBB} through the {@link ChunkBlockIndex}.
  *
  * @author Ordinastie
  */
@@ -54,31 +65,130 @@ public class ChunkCallbackRegistry<C extends IChunkCallback<V>, P extends IChunk
 	public CallbackResult<V> processCallbacks(Chunk chunk, Object... params)
 	{
 		//true = cancel => return
-		Set<BlockPos> coords = ChunkBlockHandler.get().chunks(chunk).get(chunk);
-		return processListeners(coords, chunk, params);
+		ChunkBlockHandler handler = ChunkBlockHandler.get();
+		TLongSet coords = handler.getCoords(chunk);
+		if (coords.isEmpty())
+			return CallbackResult.noResult();
+
+		ChunkBlockIndex index = handler.getIndex(chunk.getWorld());
+		CallbackResult<V> result = CallbackResult.noResult();
+		//callbacks may add or remove coordinates, the set is then copied on write
+		handler.startIteration();
+		try
+		{
+			for (TLongIterator it = coords.iterator(); it.hasNext();)
+			{
+				//listeners not indexed are not loaded
+				Listener listener = index.get(it.next());
+				if (listener == null)
+					continue;
+
+				result = reduce.apply(result, processListener(chunk, listener, params));
+				if (result.isForcedCancelled())
+					return result;
+			}
+		}
+		finally
+		{
+			handler.endIteration();
+		}
+		return result;
 	}
 
 	/**
-	 * Processes the {@link IChunkCallback IChunkCallbacks} registered for the list of {@link BlockPos}.
+	 * Processes the {@link IChunkCallback IChunkCallbacks} registered for the listeners whose range contains the {@link BlockPos}.
 	 *
-	 * @param list the list
 	 * @param chunk the chunk
+	 * @param pos the pos
 	 * @param params the params
 	 * @return the callback result
 	 */
-	private CallbackResult<V> processListeners(Set<BlockPos> list, Chunk chunk, Object... params)
+	public CallbackResult<V> processCallbacksAt(Chunk chunk, BlockPos pos, Object... params)
 	{
 		CallbackResult<V> result = CallbackResult.noResult();
-		for (BlockPos listener : list)
+		for (Listener listener : ChunkBlockHandler.get().getIndex(chunk.getWorld()).getListeners(pos))
 		{
-			CallbackResult<V> tmp = super.processCallbacks(chunk, listener, params);
-			result = reduce.apply(result, tmp);
+			if (!listener.contains(pos))
+				continue;
+
+			result = reduce.apply(result, processListener(chunk, listener, params));
 			if (result.isForcedCancelled())
 				return result;
 		}
 		return result;
 	}
 
+	/**
+	 * Processes the {@link IChunkCallback IChunkCallbacks} registered for the listeners whose range intersects the
+	 * {@link AxisAlignedBB}.<br>
+	 * The {@link Chunk} passed to the callbacks is the one containing the listener.
+	 *
+	 * @param world the world
+	 * @param aabb the aabb
+	 * @param params the params
+	 * @return the callback result
+	 */
+	public CallbackResult<V> processCallbacksIn(World world, AxisAlignedBB aabb, Object... params)
+	{
+		List<Listener> listeners = new ArrayList<>();
+		ChunkBlockHandler.get().getIndex(world).getListeners(aabb, listeners);
+
+		CallbackResult<V> result = CallbackResult.noResult();
+		for (Listener listener : listeners)
+		{
+			Chunk chunk = world.getChunkFromBlockCoords(listener.getPos());
+			result = reduce.apply(result, processListener(chunk, listener, params));
+			if (result.isForcedCancelled())
+				return result;
+		}
+		return result;
+	}
+
+	/**
+	 * Processes the registered {@link IChunkCallback IChunkCallbacks} for a single {@link Listener}, according to their priority.<br>
+	 * Callbacks and predicates are called directly with their typed arguments.
+	 *
+	 * @param chunk the chunk
+	 * @param listener the listener
+	 * @param params the params
+	 * @return the callback result
+	 */
+	private CallbackResult<V> processListener(Chunk chunk, Listener listener, Object[] params)
+	{
+		CallbackResult<V> result = CallbackResult.noResult();
+		Priority lastPriority = Priority.HIGHEST;
+		for (Pair<C, CallbackOption<P>> pair : callbacks)
+		{
+			CallbackOption<P> option = pair.getRight();
+			if (result.isCancelled() && option.getPriority() != lastPriority)
+				return result;
+
+			P predicate = option.getPredicate();
+			if (predicate == null || predicate.apply(chunk, listener, params))
+			{
+				result = reduce.apply(result, pair.getLeft().call(chunk, listener, params));
+				if (result.isForcedCancelled())
+					return result;
+
+				lastPriority = option.getPriority();
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Gets the indexed {@link Listener} at the {@link BlockPos}.
+	 *
+	 * @param chunk the chunk
+	 * @param pos the pos
+	 * @return the listener, or null if none is indexed
+	 */
+	static Listener getListener(Chunk chunk, BlockPos pos)
+	{
+		return ChunkBlockHandler.get().getIndex(chunk.getWorld()).get(pos.toLong());
+	}
+
 	/**
 	 * Specialized {@link ICallback} for {@link ChunkCallbackRegistry}.<br>
 	 * If the {@link CallbackResult#isForcedCancelled()} is {@code true}, the next listener positions won't be processed.
@@ -92,6 +202,37 @@ public class ChunkCallbackRegistry<C extends IChunkCallback<V>, P extends IChunk
 		}
 
 		public CallbackResult<V> call(Chunk chunk, BlockPos listener, Object... params);
+
+		/**
+		 * Called by the {@link ChunkCallbackRegistry} with the indexed {@link Listener}.<br>
+		 * Defaults to {@link #call(Chunk, BlockPos, Object...)} with the position of the listener.
+		 *
+		 * @param chunk the chunk
+		 * @param listener the listener
+		 * @param params the params
+		 * @return the callback result
+		 */
+		public default CallbackResult<V> call(Chunk chunk, Listener listener, Object... params)
+		{
+			return call(chunk, listener.getPos(), params);
+		}
+	}
+
+	/**
+	 * {@link IChunkCallback} using the indexed {@link Listener} directly, so its state and components don't need to be queried.
+	 */
+	@FunctionalInterface
+	public interface IListenerCallback<V> extends IChunkCallback<V>
+	{
+		@Override
+		public default CallbackResult<V> call(Chunk chunk, BlockPos pos, Object... params)
+		{
+			Listener listener = getListener(chunk, pos);
+			return listener != null ? call(chunk, listener, params) : CallbackResult.noResult();
+		}
+
+		@Override
+		public CallbackResult<V> call(Chunk chunk, Listener listener, Object... params);
 	}
 
 	/**
@@ -107,5 +248,36 @@ public class ChunkCallbackRegistry<C extends IChunkCallback<V>, P extends IChunk
 		}
 
 		public boolean apply(Chunk chunk, BlockPos listener, Object... params);
+
+		/**
+		 * Called by the {@link ChunkCallbackRegistry} with the indexed {@link Listener}.<br>
+		 * Defaults to {@link #apply(Chunk, BlockPos, Object...)} with the position of the listener.
+		 *
+		 * @param chunk the chunk
+		 * @param listener the listener
+		 * @param params the params
+		 * @return true, if successful
+		 */
+		public default boolean apply(Chunk chunk, Listener listener, Object... params)
+		{
+			return apply(chunk, listener.getPos(), params);
+		}
+	}
+
+	/**
+	 * {@link IChunkCallbackPredicate} using the indexed {@link Listener} directly.
+	 */
+	@FunctionalInterface
+	public interface IListenerPredicate extends IChunkCallbackPredicate
+	{
+		@Override
+		public default boolean apply(Chunk chunk, BlockPos pos, Object... params)
+		{
+			Listener listener = getListener(chunk, pos);
+			return listener != null && apply(chunk, listener, params);
+		}
+
+		@Override
+		public boolean apply(Chunk chunk, Listener listener, Object... params);
 	}
 }
@@ -33,16 +33,19 @@ import net.malisis.core.block.IComponent;
 import net.malisis.core.block.component.DirectionalComponent;
 import net.malisis.core.registry.AutoLoad;
 import net.malisis.core.util.AABBUtils;
+import net.malisis.core.util.BlockBatch;
 import net.malisis.core.util.BlockPosUtils;
 import net.malisis.core.util.ItemUtils;
 import net.malisis.core.util.MBlockState;
 import net.malisis.core.util.Point;
 import net.malisis.core.util.callback.CallbackResult;
 import net.malisis.core.util.callback.ICallback.CallbackOption;
-import net.malisis.core.util.chunkblock.ChunkBlockHandler;
+import net.malisis.core.util.chunkblock.ChunkBlockIndex.Listener;
 import net.malisis.core.util.chunkblock.ChunkCallbackRegistry;
 import net.malisis.core.util.chunkblock.ChunkCallbackRegistry.IChunkCallback;
 import net.malisis.core.util.chunkblock.ChunkCallbackRegistry.IChunkCallbackPredicate;
+import net.malisis.core.util.chunkblock.ChunkCallbackRegistry.IListenerCallback;
+import net.malisis.core.util.chunkblock.ChunkCallbackRegistry.IListenerPredicate;
 import net.malisis.core.util.raytrace.Raytrace;
 import net.malisis.core.util.raytrace.RaytraceBlock;
 import net.malisis.core.util.raytrace.RaytraceChunk;
@@ -84,10 +87,12 @@ public class ChunkCollision
 	public ChunkCollision()
 	{
 		MinecraftForge.EVENT_BUS.register(this);
-		collisionRegistry.registerCallback(	this::collisionBoxesCallback,
-											CallbackOption.of((IChunkCallbackPredicate) this::isChunkCollidable));
-		rayTraceRegistry.registerCallback(this::rayTraceCallback, CallbackOption.of((IChunkCallbackPredicate) this::isChunkCollidable));
-		placeAtRegistry.registerCallback(this::placeAtCallback, CallbackOption.of((IChunkCallbackPredicate) this::isChunkCollidable));
+		collisionRegistry.registerCallback(	(IListenerCallback<Void>) this::collisionBoxesCallback,
+											CallbackOption.of((IListenerPredicate) this::isChunkCollidable));
+		rayTraceRegistry.registerCallback(	(IListenerCallback<RayTraceResult>) this::rayTraceCallback,
+											CallbackOption.of((IListenerPredicate) this::isChunkCollidable));
+		placeAtRegistry.registerCallback(	(IListenerCallback<Boolean>) this::placeAtCallback,
+											CallbackOption.of((IListenerPredicate) this::isChunkCollidable));
 	}
 
 	public boolean isChunkCollidable(Chunk chunk, BlockPos listener, Object... params)
@@ -95,6 +100,11 @@ public class ChunkCollision
 		return IComponent.getComponent(IChunkCollidable.class, chunk.getWorld().getBlockState(listener).getBlock()) != null;
 	}
 
+	public boolean isChunkCollidable(Chunk chunk, Listener listener, Object... params)
+	{
+		return listener.getCollidable() != null;
+	}
+
 	//#region getCollisionBoundinBoxes
 	/**
 	 * Gets the collision bounding boxes for the intersecting chunks.<br>
@@ -110,28 +120,31 @@ public class ChunkCollision
 		if (event.getAabb() == null)
 			return;
 
-		for (Chunk chunk : ChunkBlockHandler.getAffectedChunks(event.getWorld(), event.getAabb()))
-			collisionRegistry.processCallbacks(chunk, event.getAabb(), event.getCollisionBoxesList());
+		collisionRegistry.processCallbacksIn(event.getWorld(), event.getAabb(), event.getAabb(), event.getCollisionBoxesList());
 	}
 
-	private CallbackResult<Void> collisionBoxesCallback(Chunk chunk, BlockPos listener, Object... params)
+	private CallbackResult<Void> collisionBoxesCallback(Chunk chunk, Listener listener, Object... params)
 	{
-		//make sure to get the state from world, because listener may not be inside the passed chunk
-		IBlockState state = chunk.getWorld().getBlockState(listener);
-		IChunkCollidable cc = IComponent.getComponent(IChunkCollidable.class, state.getBlock());
+		IChunkCollidable cc = listener.getCollidable();
 		AxisAlignedBB mask = (AxisAlignedBB) params[0];
 		@SuppressWarnings("unchecked")
 		List<AxisAlignedBB> list = (List<AxisAlignedBB>) params[1];
 
-		AxisAlignedBB[] aabbs = cc.getCollisionBoundingBoxes(chunk.getWorld(), listener, state);
+		BlockPos pos = listener.getPos();
+		AxisAlignedBB[] aabbs = cc.getCollisionBoundingBoxes(chunk.getWorld(), pos, listener.getState());
+		if (aabbs == null)
+			return CallbackResult.noResult();
+
 		for (AxisAlignedBB aabb : aabbs)
 		{
-			if (aabb != null)
-			{
-				aabb = AABBUtils.offset(listener, aabb);
-				if (mask.intersects(aabb))
-					list.add(aabb);
-			}
+			//only offset the boxes actually colliding
+			if (aabb != null && mask.intersects(aabb.minX + pos.getX(),
+												aabb.minY + pos.getY(),
+												aabb.minZ + pos.getZ(),
+												aabb.maxX + pos.getX(),
+												aabb.maxY + pos.getY(),
+												aabb.maxZ + pos.getZ()))
+				list.add(AABBUtils.offset(pos, aabb));
 		}
 
 		return CallbackResult.noResult();
@@ -178,9 +191,9 @@ public class ChunkCollision
 		return rayTraceRegistry.processCallbacks(chunk, src, dest).getValue();
 	}
 
-	private CallbackResult<RayTraceResult> rayTraceCallback(Chunk chunk, BlockPos listener, Object... params)
+	private CallbackResult<RayTraceResult> rayTraceCallback(Chunk chunk, Listener listener, Object... params)
 	{
-		RayTraceResult result = new RaytraceBlock(chunk.getWorld(), (Point) params[0], (Point) params[1], listener).trace();
+		RayTraceResult result = new RaytraceBlock(chunk.getWorld(), (Point) params[0], (Point) params[1], listener.getPos()).trace();
 		return result != null ? CallbackResult.of(result) : CallbackResult.noResult();
 	}
 
@@ -238,18 +251,20 @@ public class ChunkCollision
 			}
 		}
 
-		for (Chunk chunk : ChunkBlockHandler.getAffectedChunks(world, aabbs))
+		for (AxisAlignedBB aabb : aabbs)
 		{
-			CallbackResult<Boolean> result = placeAtRegistry.processCallbacks(chunk, (Object[]) aabbs);
+			if (aabb == null)
+				continue;
+			CallbackResult<Boolean> result = placeAtRegistry.processCallbacksIn(world, aabb, (Object[]) aabbs);
 			if (result.getValue() != null && !result.getValue())
 				return false;
 		}
 		return true;
 	}
 
-	private CallbackResult<Boolean> placeAtCallback(Chunk chunk, BlockPos listener, Object... params)
+	private CallbackResult<Boolean> placeAtCallback(Chunk chunk, Listener listener, Object... params)
 	{
-		MBlockState state = new MBlockState(chunk.getWorld(), listener);
+		MBlockState state = new MBlockState(listener.getPos(), listener.getState());
 		AxisAlignedBB[] blockBounds = AABBUtils.getCollisionBoundingBoxes(chunk.getWorld(), state, true);
 
 		return CallbackResult.of(!AABBUtils.isColliding((AxisAlignedBB[]) params, blockBounds));
@@ -266,6 +281,7 @@ public class ChunkCollision
 	public void replaceBlocks(World world, MBlockState state)
 	{
 		AxisAlignedBB[] aabbs = AABBUtils.getCollisionBoundingBoxes(world, state, true);
+		BlockBatch batch = new BlockBatch(world);
 		for (AxisAlignedBB aabb : aabbs)
 		{
 			if (aabb == null)
@@ -274,9 +290,10 @@ public class ChunkCollision
 			for (BlockPos pos : BlockPosUtils.getAllInBox(aabb))
 			{
 				if (world.getBlockState(pos).getBlock().isReplaceable(world, pos))
-					world.setBlockToAir(pos);
+					batch.setToAir(pos);
 			}
 		}
+		batch.apply(3);
 	}
 
 	/**
@@ -24,13 +24,14 @@
 
 package net.malisis.core.util.chunklistener;
 
-import net.malisis.core.block.IComponent;
 import net.malisis.core.registry.AutoLoad;
 import net.malisis.core.registry.MalisisRegistry;
 import net.malisis.core.registry.SetBlockCallbackRegistry;
 import net.malisis.core.util.callback.CallbackResult;
 import net.malisis.core.util.callback.ICallback;
 import net.malisis.core.util.callback.ICallback.CallbackOption;
+import net.malisis.core.util.chunkblock.ChunkBlockHandler;
+import net.malisis.core.util.chunkblock.ChunkBlockIndex.Listener;
 import net.malisis.core.util.chunkblock.ChunkCallbackRegistry;
 import net.malisis.core.util.chunkblock.ChunkCallbackRegistry.IChunkCallback;
 import net.malisis.core.util.chunkblock.ChunkCallbackRegistry.IChunkCallbackPredicate;
@@ -52,10 +53,29 @@ public class ChunkListener
 
 	public ChunkListener()
 	{
-		MalisisRegistry.onPreSetBlock(preRegistry::processCallbacks, CallbackOption.of());
-		MalisisRegistry.onPostSetBlock(postRegistry::processCallbacks, CallbackOption.of());
-		preRegistry.registerCallback(this::callPreListener, CallbackOption.of(this::isValidPreListener));
-		postRegistry.registerCallback(this::callPostListener, CallbackOption.of(this::isValidPostListener));
+		//only process positions in range of listeners, any block can be listened to
+		MalisisRegistry.onPreSetBlock(	(chunk, pos, oldState, newState) -> preRegistry.processCallbacksAt(chunk, pos, pos, oldState, newState),
+										CallbackOption.of(this::hasListeners));
+		MalisisRegistry.onPostSetBlock(	(chunk, pos, oldState, newState) -> postRegistry.processCallbacksAt(chunk, pos, pos, oldState, newState),
+										CallbackOption.of(this::hasListeners));
+		preRegistry.registerCallback(	(ListenerCallback) this::callPreListener,
+										CallbackOption.of((ListenerPredicate) this::isValidPreListener));
+		postRegistry.registerCallback(	(ListenerCallback) this::callPostListener,
+										CallbackOption.of((ListenerPredicate) this::isValidPostListener));
+	}
+
+	/**
+	 * Checks whether any listener is indexed around the {@link BlockPos}.
+	 *
+	 * @param chunk the chunk
+	 * @param pos the pos
+	 * @param oldState the old state
+	 * @param newState the new state
+	 * @return true, if successful
+	 */
+	private boolean hasListeners(Chunk chunk, BlockPos pos, IBlockState oldState, IBlockState newState)
+	{
+		return ChunkBlockHandler.get().getIndex(chunk.getWorld()).getListeners(pos).length != 0;
 	}
 
 	/**
@@ -69,10 +89,9 @@ public class ChunkListener
 	 * @param newState the new state
 	 * @return true, if successful
 	 */
-	public boolean callPreListener(Chunk chunk, BlockPos listener, BlockPos modified, IBlockState oldState, IBlockState newState)
+	public boolean callPreListener(Chunk chunk, Listener listener, BlockPos modified, IBlockState oldState, IBlockState newState)
 	{
-		IBlockListener.Pre bl = IComponent.getComponent(IBlockListener.Pre.class, chunk.getWorld().getBlockState(listener).getBlock());
-		return bl.onBlockSet(chunk.getWorld(), listener, modified, oldState, newState);
+		return listener.getPreListener().onBlockSet(chunk.getWorld(), listener.getPos(), modified, oldState, newState);
 	}
 
 	/**
@@ -85,12 +104,12 @@ public class ChunkListener
 	 * @param newState the new state
 	 * @return true, if is valid pre listener
 	 */
-	public boolean isValidPreListener(Chunk chunk, BlockPos listener, BlockPos modified, IBlockState oldState, IBlockState newState)
+	public boolean isValidPreListener(Chunk chunk, Listener listener, BlockPos modified, IBlockState oldState, IBlockState newState)
 	{
-		if (listener.equals(modified))
+		if (listener.getPos().equals(modified))
 			return false;
-		IBlockListener.Pre bl = IComponent.getComponent(IBlockListener.Pre.class, chunk.getWorld().getBlockState(listener).getBlock());
-		if (bl != null && bl.isInRange(listener, modified))
+		IBlockListener.Pre bl = listener.getPreListener();
+		if (bl != null && bl.isInRange(listener.getPos(), modified))
 			return true;
 
 		return false;
@@ -106,10 +125,9 @@ public class ChunkListener
 	 * @param newState the new state
 	 * @return true, if successful
 	 */
-	public boolean callPostListener(Chunk chunk, BlockPos listener, BlockPos modified, IBlockState oldState, IBlockState newState)
+	public boolean callPostListener(Chunk chunk, Listener listener, BlockPos modified, IBlockState oldState, IBlockState newState)
 	{
-		IBlockListener.Post bl = IComponent.getComponent(IBlockListener.Post.class, chunk.getWorld().getBlockState(listener).getBlock());
-		bl.onBlockSet(chunk.getWorld(), listener, modified, oldState, newState);
+		listener.getPostListener().onBlockSet(chunk.getWorld(), listener.getPos(), modified, oldState, newState);
 		return true;
 	}
 
@@ -123,12 +141,12 @@ public class ChunkListener
 	 * @param newState the new state
 	 * @return true, if is valid post listener
 	 */
-	public boolean isValidPostListener(Chunk chunk, BlockPos listener, BlockPos modified, IBlockState oldState, IBlockState newState)
+	public boolean isValidPostListener(Chunk chunk, Listener listener, BlockPos modified, IBlockState oldState, IBlockState newState)
 	{
-		if (listener.equals(modified))
+		if (listener.getPos().equals(modified))
 			return false;
-		IBlockListener.Post bl = IComponent.getComponent(IBlockListener.Post.class, chunk.getWorld().getBlockState(listener).getBlock());
-		if (bl != null && bl.isInRange(listener, modified))
+		IBlockListener.Post bl = listener.getPostListener();
+		if (bl != null && bl.isInRange(listener.getPos(), modified))
 			return true;
 
 		return false;
@@ -146,6 +164,13 @@ public class ChunkListener
 																													: CANCELLED;
 		}
 
+		@Override
+		public default CallbackResult<Void> call(Chunk chunk, Listener listener, Object... params)
+		{
+			return call(chunk, listener, (BlockPos) params[0], (IBlockState) params[1], (IBlockState) params[2])	? CallbackResult.noResult()
+																													: CANCELLED;
+		}
+
 		/**
 		 * If this {@link IBlockListenerCallback} was registered with
 		 * {@link MalisisRegistry#onPreSetBlock(SetBlockCallbackRegistry.ISetBlockCallback, ICallback.CallbackOption)}, returns whether to
@@ -159,6 +184,22 @@ public class ChunkListener
 		 * @return true, if the block should be cancelled
 		 */
 		public boolean call(Chunk chunk, BlockPos listener, BlockPos modified, IBlockState oldState, IBlockState newState);
+
+		/**
+		 * Called with the indexed {@link Listener}.<br>
+		 * Defaults to {@link #call(Chunk, BlockPos, BlockPos, IBlockState, IBlockState)} with the position of the listener.
+		 *
+		 * @param chunk the chunk
+		 * @param listener the listener
+		 * @param modified the modified
+		 * @param oldState the old state
+		 * @param newState the new state
+		 * @return true, if the block should be cancelled
+		 */
+		public default boolean call(Chunk chunk, Listener listener, BlockPos modified, IBlockState oldState, IBlockState newState)
+		{
+			return call(chunk, listener.getPos(), modified, oldState, newState);
+		}
 	}
 
 	/**
@@ -172,6 +213,62 @@ public class ChunkListener
 			return apply(chunk, listener, (BlockPos) params[0], (IBlockState) params[1], (IBlockState) params[2]);
 		}
 
+		@Override
+		public default boolean apply(Chunk chunk, Listener listener, Object... params)
+		{
+			return apply(chunk, listener, (BlockPos) params[0], (IBlockState) params[1], (IBlockState) params[2]);
+		}
+
 		public boolean apply(Chunk chunk, BlockPos listener, BlockPos modified, IBlockState oldState, IBlockState newState);
+
+		/**
+		 * Called with the indexed {@link Listener}.<br>
+		 * Defaults to {@link #apply(Chunk, BlockPos, BlockPos, IBlockState, IBlockState)} with the position of the listener.
+		 *
+		 * @param chunk the chunk
+		 * @param listener the listener
+		 * @param modified the modified
+		 * @param oldState the old state
+		 * @param newState the new state
+		 * @return true, if successful
+		 */
+		public default boolean apply(Chunk chunk, Listener listener, BlockPos modified, IBlockState oldState, IBlockState newState)
+		{
+			return apply(chunk, listener.getPos(), modified, oldState, newState);
+		}
+	}
+
+	/**
+	 * {@link IBlockListenerCallback} using the indexed {@link Listener} directly.
+	 */
+	@FunctionalInterface
+	private interface ListenerCallback extends IBlockListenerCallback
+	{
+		@Override
+		public default boolean call(Chunk chunk, BlockPos pos, BlockPos modified, IBlockState oldState, IBlockState newState)
+		{
+			Listener listener = ChunkBlockHandler.get().getIndex(chunk.getWorld()).get(pos.toLong());
+			return listener == null || call(chunk, listener, modified, oldState, newState);
+		}
+
+		@Override
+		public boolean call(Chunk chunk, Listener listener, BlockPos modified, IBlockState oldState, IBlockState newState);
+	}
+
+	/**
+	 * {@link IBlockListenerPredicate} using the indexed {@link Listener} directly.
+	 */
+	@FunctionalInterface
+	private interface ListenerPredicate extends IBlockListenerPredicate
+	{
+		@Override
+		public default boolean apply(Chunk chunk, BlockPos pos, BlockPos modified, IBlockState oldState, IBlockState newState)
+		{
+			Listener listener = ChunkBlockHandler.get().getIndex(chunk.getWorld()).get(pos.toLong());
+			return listener != null && apply(chunk, listener, modified, oldState, newState);
+		}
+
+		@Override
+		public boolean apply(Chunk chunk, Listener listener, BlockPos modified, IBlockState oldState, IBlockState newState);
 	}
 }
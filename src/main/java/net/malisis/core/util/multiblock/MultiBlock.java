@@ -34,10 +34,13 @@ import net.malisis.core.MalisisCore;
 import net.malisis.core.block.IComponent;
 import net.malisis.core.block.component.DirectionalComponent;
 import net.malisis.core.registry.AutoLoad;
+import net.malisis.core.util.BlockBatch;
 import net.malisis.core.util.BlockPosUtils;
 import net.malisis.core.util.EnumFacingUtils;
 import net.malisis.core.util.MBlockState;
+import net.malisis.core.util.blockdata.BlockDataCodec;
 import net.malisis.core.util.blockdata.BlockDataHandler;
+import net.malisis.core.util.blockdata.BlockDataHandler.HandlerInfo;
 import net.minecraft.block.properties.PropertyDirection;
 import net.minecraft.block.state.IBlockState;
 import net.minecraft.util.EnumFacing;
@@ -53,11 +56,7 @@ import net.minecraft.world.World;
 public abstract class MultiBlock implements Iterable<MBlockState>
 {
 	public static String ORIGIN_BLOCK_DATA = MalisisCore.modid + ":multiBlockOrigin";
-
-	static
-	{
-		BlockDataHandler.registerBlockData(ORIGIN_BLOCK_DATA, BlockPosUtils::fromBytes, BlockPosUtils::toBytes);
-	}
+	private static final HandlerInfo<BlockPos> originData = BlockDataHandler.registerBlockData(ORIGIN_BLOCK_DATA, BlockDataCodec.BLOCK_POS);
 
 	protected Map<BlockPos, MBlockState> states = new HashMap<>();
 	protected BlockPos offset = BlockPos.ORIGIN;
@@ -133,16 +132,18 @@ public abstract class MultiBlock implements Iterable<MBlockState>
 
 	public void placeBlocks(World world, BlockPos origin, IBlockState originState, boolean placeOrigin)
 	{
+		BlockBatch batch = new BlockBatch(world);
 		for (MBlockState mstate : worldStates(world, origin))
 		{
 			if (!mstate.getPos().equals(origin) || placeOrigin)
 			{
-				BlockDataHandler.setData(ORIGIN_BLOCK_DATA, world, mstate.getPos(), origin);
-				mstate.placeBlock(world, 2);
+				BlockDataHandler.setData(originData, world, mstate.getPos(), origin);
+				batch.set(mstate.getPos(), mstate.getBlockState());
 			}
 		}
+		batch.apply(2);
 
-		BlockDataHandler.setData(ORIGIN_BLOCK_DATA, world, origin, origin);
+		BlockDataHandler.setData(originData, world, origin, origin);
 	}
 
 	public void breakBlocks(World world, BlockPos pos, IBlockState state)
@@ -152,21 +153,23 @@ public abstract class MultiBlock implements Iterable<MBlockState>
 			return;
 
 		IBlockState originState = world.getBlockState(origin);
-		BlockDataHandler.removeData(ORIGIN_BLOCK_DATA, world, origin);
+		BlockDataHandler.removeData(originData, world, origin);
+		BlockBatch batch = new BlockBatch(world);
 		for (MBlockState mstate : worldStates(origin, originState))
 		{
 			//remove data first so breaking this block doesn't re-trigger this loop
-			BlockDataHandler.removeData(ORIGIN_BLOCK_DATA, world, mstate.getPos());
-			mstate.breakBlock(world, 2);
+			BlockDataHandler.removeData(originData, world, mstate.getPos());
+			batch.setToAir(mstate.getPos());
 		}
+		batch.apply(2);
 	}
 
 	public void setOriginData(World world, BlockPos pos, IBlockState state)
 	{
 		for (MBlockState mstate : this)
-			BlockDataHandler.setData(ORIGIN_BLOCK_DATA, world, mstate.getPos(), pos);
+			BlockDataHandler.setData(originData, world, mstate.getPos(), pos);
 
-		BlockDataHandler.setData(ORIGIN_BLOCK_DATA, world, pos, pos);
+		BlockDataHandler.setData(originData, world, pos, pos);
 	}
 
 	public boolean isComplete(World world, BlockPos pos)
@@ -222,11 +225,11 @@ public abstract class MultiBlock implements Iterable<MBlockState>
 
 	public static BlockPos getOrigin(IBlockAccess world, BlockPos pos)
 	{
-		BlockPos origin = BlockDataHandler.getData(ORIGIN_BLOCK_DATA, world, pos);
+		BlockPos origin = BlockDataHandler.getData(originData, world, pos);
 		if (origin != null && IComponent.getComponent(MultiBlockComponent.class, world.getBlockState(origin).getBlock()) == null)
 		{
 			origin = null;
-			BlockDataHandler.removeData(ORIGIN_BLOCK_DATA, world, pos);
+			BlockDataHandler.removeData(originData, world, pos);
 		}
 		return world != null && pos != null ? origin : null;
 	}